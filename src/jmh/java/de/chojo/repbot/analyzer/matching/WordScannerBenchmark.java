@@ -0,0 +1,105 @@
+package de.chojo.repbot.analyzer.matching;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the {@link WordScanner} with the split based word resolution previously used by the message analyzer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WordScannerBenchmark {
+    private static final int LOOKAROUND = 6;
+    private static final List<String> THANKWORDS = List.of("thx", "thank[sx]?", "ty", "tyvm", "tysm", "dan[kg]e?", "(?:re)?merci");
+    private static final String[] FILLER = {"hey", "@bob", "could", "you", "please", "check", "the", "logs", "again", "?",
+            "it", "works", "now", "great", "job", "with", "that", "fix", "<:pepe:1234567890>", "https://example.com"};
+
+    @Param({"5", "20", "80"})
+    private int words;
+
+    private String message;
+    private Pattern pattern;
+    private ThankwordMatcher matcher;
+    private WordScanner scanner;
+
+    @Setup
+    public void setup() {
+        var random = new Random(words);
+        var builder = new StringBuilder();
+        for (var i = 0; i < words; i++) {
+            if (i > 0) builder.append(' ');
+            // roughly one thankword every 15 words and at least one per message
+            builder.append(i == words / 2 || random.nextInt(15) == 0 ? "thanks" : FILLER[random.nextInt(FILLER.length)]);
+        }
+        message = builder.toString();
+        pattern = legacyPattern();
+        matcher = ThankwordMatcher.compile(THANKWORDS);
+        scanner = new WordScanner();
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        var words = new ArrayList<>(List.of(message.split("\\s")));
+        words.removeIf(String::isBlank);
+
+        List<Integer> thankWordIndices = new ArrayList<>();
+        var index = 0;
+        for (var word : words) {
+            if (pattern.matcher(word).find()) {
+                thankWordIndices.add(index);
+            }
+            index++;
+        }
+
+        for (var thankwordindex : thankWordIndices) {
+            List<String> resolve = new ArrayList<>();
+            if (thankwordindex != 0) {
+                resolve.addAll(words.subList(Math.max(0, thankwordindex - LOOKAROUND), thankwordindex));
+            }
+            if (thankwordindex != words.size() - 1) {
+                resolve.addAll(words.subList(Math.min(thankwordindex + 1, words.size() - 1), Math.min(words.size(), thankwordindex + LOOKAROUND + 1)));
+            }
+            for (var word : resolve) {
+                blackhole.consume(word);
+            }
+        }
+    }
+
+    @Benchmark
+    public void scanner(Blackhole blackhole) {
+        scanner.scan(message, matcher);
+        var candidates = scanner.candidates(LOOKAROUND);
+        for (var i = 0; i < candidates; i++) {
+            blackhole.consume(scanner.word(scanner.candidate(i)));
+        }
+    }
+
+    private static Pattern legacyPattern() {
+        var thankwords = THANKWORDS.stream()
+                .map(t -> String.format("((?:^|\\b)%s(?:$|\\b))", t))
+                .collect(Collectors.joining("|"));
+        return Pattern.compile(String.format("(?i)(%s)", thankwords),
+                Pattern.CASE_INSENSITIVE + Pattern.MULTILINE + Pattern.DOTALL + Pattern.COMMENTS);
+    }
+}
@@ -7,6 +7,9 @@ import de.chojo.jdautil.localization.ILocalizer;
 import de.chojo.jdautil.localization.Localizer;
 import de.chojo.jdautil.localization.util.Language;
 import de.chojo.repbot.analyzer.ContextResolver;
+import de.chojo.repbot.analyzer.MemberNameIndex;
+import de.chojo.repbot.analyzer.MemberResolver;
+import de.chojo.repbot.analyzer.MessageHistory;
 import de.chojo.repbot.analyzer.MessageAnalyzer;
 import de.chojo.repbot.commands.AbuseProtection;
 import de.chojo.repbot.commands.Channel;
@@ -30,6 +33,7 @@ import de.chojo.repbot.commands.Thankwords;
 import de.chojo.repbot.commands.Top;
 import de.chojo.repbot.config.Configuration;
 import de.chojo.repbot.dao.access.Cleanup;
+import de.chojo.repbot.dao.access.ReputationLogWriter;
 import de.chojo.repbot.dao.provider.Guilds;
 import de.chojo.repbot.dao.provider.Metrics;
 import de.chojo.repbot.listener.InternalCommandListener;
@@ -40,12 +44,15 @@ import de.chojo.repbot.listener.StateListener;
 import de.chojo.repbot.listener.VoiceStateListener;
 import de.chojo.repbot.listener.voting.ReputationVoteListener;
 import de.chojo.repbot.service.GdprService;
+import de.chojo.repbot.service.MessagePipeline;
 import de.chojo.repbot.service.PresenceService;
 import de.chojo.repbot.service.RepBotCachePolicy;
+import de.chojo.repbot.service.ReputationBucketService;
 import de.chojo.repbot.service.ReputationService;
 import de.chojo.repbot.service.RoleAssigner;
 import de.chojo.repbot.service.RoleUpdater;
 import de.chojo.repbot.service.SelfCleanupService;
+import de.chojo.repbot.service.SettingsWarmup;
 import de.chojo.repbot.statistic.Statistic;
 import de.chojo.repbot.util.LogNotify;
 import de.chojo.repbot.util.PermissionErrorHandler;
@@ -82,6 +89,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -89,12 +97,20 @@ public class ReputationBot {
     private static final Logger log = getLogger(ReputationBot.class);
     private static final Thread.UncaughtExceptionHandler EXCEPTION_HANDLER =
             (t, e) -> log.error(LogNotify.NOTIFY_ADMIN, "An uncaught exception occured in " + t.getName() + "-" + t.getId() + ".", e);
+    private static final long SHUTDOWN_TIMEOUT = 10;
     private static ReputationBot instance;
     private final ThreadGroup eventGroup = new ThreadGroup("Event Worker");
     private final ThreadGroup workerGroup = new ThreadGroup("Scheduled Worker");
     private final ThreadGroup hikariGroup = new ThreadGroup("Hikari Worker");
     private final ThreadGroup jdaGroup = new ThreadGroup("JDA Worker");
+    private final ThreadGroup messageGroup = new ThreadGroup("Message Worker");
+    private final ThreadGroup roleGroup = new ThreadGroup("Role Worker");
+    private final ThreadGroup warmupGroup = new ThreadGroup("Warmup Worker");
     private final ExecutorService eventThreads = Executors.newFixedThreadPool(20, createThreadFactory(eventGroup));
+    private final ExecutorService messageThreads = Executors.newFixedThreadPool(20, createThreadFactory(messageGroup));
+    // two threads each to leave enough connections for the event handling
+    private final ExecutorService roleThreads = Executors.newFixedThreadPool(2, createThreadFactory(roleGroup));
+    private final ExecutorService warmupThreads = Executors.newFixedThreadPool(2, createThreadFactory(warmupGroup));
     private final ScheduledExecutorService repBotWorker = Executors.newScheduledThreadPool(3, createThreadFactory(workerGroup));
     private ShardManager shardManager;
     private HikariDataSource dataSource;
@@ -105,6 +121,7 @@ public class ReputationBot {
     private Roles roles;
     private RoleAssigner roleAssigner;
     private Guilds guilds;
+    private ReputationLogWriter reputationLogWriter;
     private de.chojo.repbot.dao.access.Gdpr gdpr;
     private Cleanup cleanup;
     private Metrics metrics;
@@ -218,7 +235,8 @@ public class ReputationBot {
                 .withExecutor(repBotWorker)
                 .build());
 
-        guilds = new Guilds(dataSource);
+        reputationLogWriter = ReputationLogWriter.create(dataSource, repBotWorker);
+        guilds = new Guilds(dataSource, reputationLogWriter);
         gdpr = new de.chojo.repbot.dao.access.Gdpr(dataSource);
         cleanup = new Cleanup(dataSource);
         updatePool.close();
@@ -261,19 +279,27 @@ public class ReputationBot {
         });
         var statistic = Statistic.of(shardManager, metrics, repBotWorker);
 
-        var contextResolver = new ContextResolver(dataSource, configuration);
-        var messageAnalyzer = new MessageAnalyzer(contextResolver, configuration, metrics);
+        var messageHistory = new MessageHistory(guilds, configuration);
+        var memberResolver = new MemberResolver();
+        var contextResolver = new ContextResolver(dataSource, configuration, messageHistory, memberResolver);
+        var memberNameIndex = MemberNameIndex.create(repBotWorker);
+        var messageAnalyzer = new MessageAnalyzer(contextResolver, memberNameIndex, memberResolver, configuration, metrics);
 
         PresenceService.start(shardManager, configuration, statistic, repBotWorker);
         scan.lateInit(messageAnalyzer);
 
         // init services
-        var reputationService = new ReputationService(guilds, contextResolver, roleAssigner, configuration.magicImage(), localizer);
+        var messagePipeline = new MessagePipeline(messageThreads);
+        var reputationService = new ReputationService(guilds, contextResolver, roleAssigner, configuration.magicImage(),
+                localizer, messagePipeline.executor());
         var gdprService = GdprService.of(shardManager, guilds, gdpr, repBotWorker);
         SelfCleanupService.create(shardManager, localizer, guilds, cleanup, configuration, repBotWorker);
+        ReputationBucketService.create(cleanup, repBotWorker);
+        var roleUpdater = RoleUpdater.create(guilds, roleAssigner, repBotWorker, roleThreads);
 
         if (configuration.baseSettings().isInternalCommands()) {
-            shardManager.addEventListener(new InternalCommandListener(configuration, statistic, metrics));
+            shardManager.addEventListener(new InternalCommandListener(configuration, statistic, metrics, messageAnalyzer, roleUpdater,
+                    repBotCachePolicy));
         }
 
         CommandHub.builder(shardManager)
@@ -317,20 +343,24 @@ public class ReputationBot {
         var reactionListener = new ReactionListener(guilds, localizer, reputationService, configuration);
         var voteListener = new ReputationVoteListener(guilds, reputationService, localizer, configuration);
         var messageListener = new MessageListener(localizer, configuration, guilds, repBotCachePolicy, voteListener,
-                reputationService, contextResolver, messageAnalyzer);
+                reputationService, contextResolver, messageAnalyzer, messagePipeline);
         var voiceStateListener = VoiceStateListener.of(dataSource, repBotWorker);
         var logListener = LogListener.create(repBotWorker);
         var stateListener = StateListener.of(localizer, guilds, configuration, metrics);
-        var roleUpdater = RoleUpdater.create(guilds, roleAssigner, repBotWorker);
+        var settingsWarmup = SettingsWarmup.create(shardManager, guilds, warmupThreads);
 
+        // the history has to be updated before messages are analyzed
         shardManager.addEventListener(
+                messageHistory,
                 reactionListener,
                 voteListener,
                 messageListener,
                 voiceStateListener,
                 logListener,
                 stateListener,
-                roleUpdater);
+                roleUpdater,
+                settingsWarmup,
+                memberNameIndex);
     }
 
     private void initShutdownHook() {
@@ -339,6 +369,18 @@ public class ReputationBot {
             shardManager.shutdown();
             log.info("Shutting down scheduler.");
             repBotWorker.shutdown();
+            log.info("Shutting down message processing.");
+            messageThreads.shutdown();
+            log.info("Shutting down role updates.");
+            roleThreads.shutdown();
+            // pending warm-ups are not needed anymore
+            warmupThreads.shutdownNow();
+            // the pipelines submit reputation and use the database until they are done
+            awaitTermination(messageThreads, "message processing");
+            awaitTermination(roleThreads, "role updates");
+            awaitTermination(warmupThreads, "settings warm-up");
+            log.info("Writing pending reputation.");
+            reputationLogWriter.shutdown();
             log.info("Shutting down database connections.");
             dataSource.close();
             log.info("Bot shutdown complete.");
@@ -347,11 +389,22 @@ public class ReputationBot {
         Runtime.getRuntime().addShutdownHook(shutdown);
     }
 
+    private static void awaitTermination(ExecutorService executor, String name) {
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                log.warn("Shutdown of {} timed out after {} seconds.", name, SHUTDOWN_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            log.warn("Interrupted while waiting for shutdown of {}.", name);
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private void initJDA() throws LoginException {
         roleAssigner = new RoleAssigner(guilds);
         scan = new Scan(guilds, configuration);
         roles = new Roles(guilds, roleAssigner);
-        repBotCachePolicy = new RepBotCachePolicy(scan, roles);
+        repBotCachePolicy = RepBotCachePolicy.create(scan, roles, repBotWorker);
         shardManager = DefaultShardManagerBuilder.createDefault(configuration.baseSettings().token())
                 .enableIntents(
                         // Required to retrieve reputation emotes
@@ -0,0 +1,181 @@
+package de.chojo.repbot.analyzer;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Bounded ring buffer of the most recent messages in a channel, sorted by message id.
+ * <p>
+ * The buffer knows from which message on it is complete. Requests for messages before that point can not be served
+ * from memory.
+ */
+class ChannelHistory {
+    private static final long NOT_COVERED = Long.MAX_VALUE;
+    private final long[] ids;
+    private final long[] authors;
+    private final long[] created;
+    private final boolean[] bots;
+    // index of the oldest message
+    private int head;
+    private int size;
+    // all messages with an id greater or equal to this id are contained in the buffer
+    private long coveredFrom = NOT_COVERED;
+    private boolean seeded;
+
+    ChannelHistory(int capacity) {
+        ids = new long[capacity];
+        authors = new long[capacity];
+        created = new long[capacity];
+        bots = new boolean[capacity];
+    }
+
+    /**
+     * Add a message which was sent while the channel was tracked.
+     *
+     * @param message message
+     */
+    synchronized void add(HistoryMessage message) {
+        if (coveredFrom == NOT_COVERED) coveredFrom = message.id();
+        insert(message);
+    }
+
+    /**
+     * Add a message if it belongs to the covered range and is missing.
+     *
+     * @param message message
+     */
+    synchronized void update(HistoryMessage message) {
+        if (message.id() < coveredFrom || indexOf(message.id()) >= 0) return;
+        insert(message);
+    }
+
+    /**
+     * Add the messages before the oldest tracked message.
+     *
+     * @param messages     messages retrieved before {@link #oldest()}
+     * @param channelStart true if no older messages exist in the channel
+     */
+    synchronized void seed(Collection<HistoryMessage> messages, boolean channelStart) {
+        seeded = true;
+        var oldest = coveredFrom;
+        for (var message : messages) {
+            if (indexOf(message.id()) >= 0) continue;
+            insert(message);
+            oldest = Math.min(oldest, message.id());
+        }
+        // the buffer might have dropped messages while seeding
+        if (size == ids.length && ids[head] > oldest) return;
+        coveredFrom = channelStart ? 0 : oldest;
+    }
+
+    synchronized void remove(long id) {
+        var index = indexOf(id);
+        if (index < 0) return;
+        for (var i = index; i < size - 1; i++) {
+            copy(physical(i + 1), physical(i));
+        }
+        size--;
+    }
+
+    /**
+     * Get the latest messages before a message.
+     *
+     * @param messageId id of the message
+     * @param limit     max amount of messages
+     * @return the messages sorted from new to old or an empty optional if the buffer does not cover the requested range
+     */
+    synchronized Optional<List<HistoryMessage>> before(long messageId, int limit) {
+        if (messageId < coveredFrom) return Optional.empty();
+        var end = lowerBound(messageId);
+        if (end < limit && coveredFrom != 0) return Optional.empty();
+        List<HistoryMessage> messages = new ArrayList<>(Math.min(end, limit));
+        for (var i = end - 1; i >= 0 && messages.size() < limit; i--) {
+            var index = physical(i);
+            messages.add(new HistoryMessage(ids[index], authors[index], Instant.ofEpochMilli(created[index]), bots[index]));
+        }
+        return Optional.of(messages);
+    }
+
+    /**
+     * Id of the oldest message in the buffer.
+     *
+     * @return message id or an empty optional if the buffer is empty
+     */
+    synchronized Optional<Long> oldest() {
+        return size == 0 ? Optional.empty() : Optional.of(ids[head]);
+    }
+
+    synchronized boolean isSeeded() {
+        return seeded;
+    }
+
+    private void insert(HistoryMessage message) {
+        if (size == ids.length) {
+            // drop the oldest message
+            if (message.id() < ids[head]) return;
+            coveredFrom = Math.max(coveredFrom, ids[head] + 1);
+            head = (head + 1) % ids.length;
+            size--;
+        }
+        var pos = size;
+        var index = physical(pos);
+        ids[index] = message.id();
+        authors[index] = message.authorId();
+        created[index] = message.created().toEpochMilli();
+        bots[index] = message.bot();
+        size++;
+        // messages usually arrive in order. Move older messages to their position otherwise.
+        while (pos > 0 && ids[physical(pos - 1)] > ids[physical(pos)]) {
+            swap(physical(pos - 1), physical(pos));
+            pos--;
+        }
+    }
+
+    private int indexOf(long id) {
+        var pos = lowerBound(id);
+        return pos < size && ids[physical(pos)] == id ? pos : -1;
+    }
+
+    /**
+     * Logical position of the first message with an id greater or equal to the id.
+     */
+    private int lowerBound(long id) {
+        var low = 0;
+        var high = size;
+        while (low < high) {
+            var mid = (low + high) >>> 1;
+            if (ids[physical(mid)] < id) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int physical(int pos) {
+        return (head + pos) % ids.length;
+    }
+
+    private void copy(int from, int to) {
+        ids[to] = ids[from];
+        authors[to] = authors[from];
+        created[to] = created[from];
+        bots[to] = bots[from];
+    }
+
+    private void swap(int a, int b) {
+        var id = ids[a];
+        var author = authors[a];
+        var time = created[a];
+        var bot = bots[a];
+        copy(b, a);
+        ids[b] = id;
+        authors[b] = author;
+        created[b] = time;
+        bots[b] = bot;
+    }
+}
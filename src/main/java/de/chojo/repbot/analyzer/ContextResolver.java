@@ -2,7 +2,6 @@ package de.chojo.repbot.analyzer;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import de.chojo.jdautil.parsing.Verifier;
 import de.chojo.repbot.config.Configuration;
 import de.chojo.repbot.dao.access.guild.settings.Settings;
 import de.chojo.repbot.dao.access.guild.settings.sub.AbuseProtection;
@@ -20,7 +19,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Objects;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -31,6 +29,8 @@ public class ContextResolver {
     private static final Logger log = getLogger(ContextResolver.class);
     private final Voice voiceData;
     private final Configuration configuration;
+    private final MessageHistory messageHistory;
+    private final MemberResolver memberResolver;
     private final Cache<Long, MessageContext> messageContextCache = CacheBuilder.newBuilder()
             .expireAfterAccess(5, TimeUnit.SECONDS)
             .expireAfterWrite(10, TimeUnit.SECONDS)
@@ -42,9 +42,12 @@ public class ContextResolver {
             .expireAfterWrite(10, TimeUnit.SECONDS)
             .build();
 
-    public ContextResolver(DataSource dataSource, Configuration configuration) {
+    public ContextResolver(DataSource dataSource, Configuration configuration, MessageHistory messageHistory,
+                           MemberResolver memberResolver) {
         voiceData = new Voice(dataSource);
         this.configuration = configuration;
+        this.messageHistory = messageHistory;
+        this.memberResolver = memberResolver;
     }
 
     /**
@@ -60,7 +63,7 @@ public class ContextResolver {
     @NotNull
     public MessageContext getChannelContext(Member target, Message message, @Nullable Settings settings) {
         try {
-            return messageContextCache.get(message.getIdLong(), () -> retrieveChannelContext(target, message, settings).resolve());
+            return messageContextCache.get(message.getIdLong(), () -> retrieveChannelContext(target, message, settings).resolve(memberResolver));
         } catch (ExecutionException e) {
             log.error("Could not conpute channel context.", e);
         }
@@ -68,15 +71,8 @@ public class ContextResolver {
     }
 
     private MessageContext retrieveChannelContext(Member target, Message message, Settings settings) {
-        var history = message.getChannel().getHistoryBefore(message, configuration.analyzerSettings().historySize()).complete();
-        List<Message> retrievedHistory = new ArrayList<>();
-        // add user message
-        retrievedHistory.add(message);
-        retrievedHistory.addAll(history.getRetrievedHistory());
-        retrievedHistory = retrievedHistory.stream()
-                // Remove all bot messages. we wont need them anyway.
-                .filter(mes -> !mes.getAuthor().isBot())
-                .collect(Collectors.toList());
+        // user message and history without bot messages. we wont need them anyway.
+        var retrievedHistory = latestMessages(message);
 
         var context = MessageContext.byMessageAndMember(message, target);
         context.addRawMessages(retrievedHistory);
@@ -127,26 +123,24 @@ public class ContextResolver {
      * @param context  context
      * @param oldest   oldest allowed message
      */
-    private void addMembersAfter(Collection<Message> messages, MessageContext context, Instant oldest) {
+    private void addMembersAfter(Collection<HistoryMessage> messages, MessageContext context, Instant oldest) {
         // filter message for only recent messages and after the first message of the user.
         var filtered = messages.stream()
-                .filter(mes -> mes.getTimeCreated().toInstant().isAfter(oldest))
+                .filter(mes -> mes.created().isAfter(oldest))
                 .collect(Collectors.toCollection(LinkedHashSet::new));
         context.addContextMessages(filtered);
-        var memberIds = filtered.stream()
-                .map(Message::getAuthor)
-                .distinct()
-                .map(u -> context.guild().retrieveMemberById(u.getIdLong()).onErrorMap(mes -> null).complete())
-                .filter(Objects::nonNull)
-                .map(Member::getIdLong)
+        var authorIds = filtered.stream()
+                .map(HistoryMessage::authorId)
                 .collect(Collectors.toSet());
-        context.addIds(memberIds);
+        var members = memberResolver.resolve(context.guild(), authorIds).join();
+        context.addMembers(members);
+        context.addIds(members.stream().map(Member::getIdLong).toList());
     }
 
     private Instant findOldestMessageByTarget(MessageContext context, Instant maxAge) {
         return context.rawMessages().stream()
-                .filter(mes -> Verifier.equalSnowflake(mes.getAuthor(), context.user()))
-                .map(mes -> mes.getTimeCreated().toInstant())
+                .filter(mes -> mes.authorId() == context.user().getIdLong())
+                .map(HistoryMessage::created)
                 .filter(entry -> entry.isAfter(maxAge))
                 .min(Instant::compareTo)
                 .orElse(maxAge);
@@ -154,7 +148,7 @@ public class ContextResolver {
 
     public MessageContext getVoiceContext(Member target, Message message, @Nullable Settings settings) {
         try {
-            return voiceContextCache.get(message.getIdLong(), () -> retrieveVoiceContext(target, message, settings).resolve().resolve());
+            return voiceContextCache.get(message.getIdLong(), () -> retrieveVoiceContext(target, message, settings).resolve(memberResolver));
         } catch (ExecutionException e) {
             log.error("Could not compute voice cache", e);
         }
@@ -166,22 +160,56 @@ public class ContextResolver {
         var voiceState = target.getVoiceState();
         if (voiceState == null) return context;
         if (voiceState.inAudioChannel()) {
-            var voice = voiceState.getChannel()
-                    .getMembers()
-                    .stream()
-                    .map(Member::getIdLong)
-                    .collect(Collectors.toSet());
-            context.addIds(voice);
+            var voice = voiceState.getChannel().getMembers();
+            context.addMembers(voice);
+            context.addIds(voice.stream().map(Member::getIdLong).toList());
         }
         var pastUser = voiceData.getPastUser(target.getUser(), message.getGuild(),
                 settings == null ? 0 : settings.abuseProtection().minMessages(), configuration.analyzerSettings().voiceMembers());
-        context.addIds(pastUser.stream()
-                .map(id -> message.getGuild().retrieveMemberById(id).onErrorMap(throwable -> null).complete())
-                .map(Member::getIdLong)
-                .toList());
+        var members = memberResolver.resolve(message.getGuild(), pastUser).join();
+        context.addMembers(members);
+        context.addIds(members.stream().map(Member::getIdLong).toList());
         return context;
     }
 
+    /**
+     * Create the evaluation of a message. The combined context is resolved once on first access.
+     *
+     * @param message  message to evaluate
+     * @param settings settings of the guild
+     * @return new evaluation
+     */
+    public MessageEvaluation evaluation(Message message, @Nullable Settings settings) {
+        return evaluation(message.getMember(), message, settings);
+    }
+
+    /**
+     * Create the evaluation of a message for another member than the author.
+     *
+     * @param target   member whose context should be evaluated
+     * @param message  message to evaluate
+     * @param settings settings of the guild
+     * @return new evaluation
+     */
+    public MessageEvaluation evaluation(Member target, Message message, @Nullable Settings settings) {
+        return new MessageEvaluation(target, message, settings,
+                () -> getCombinedContext(target, message, settings),
+                () -> latestMessages(message));
+    }
+
+    /**
+     * Get the message and the messages before it which are not written by a bot.
+     *
+     * @param message message
+     * @return messages sorted from new to old
+     */
+    private List<HistoryMessage> latestMessages(Message message) {
+        List<HistoryMessage> messages = new ArrayList<>();
+        messages.add(HistoryMessage.of(message));
+        messages.addAll(messageHistory.before(message, configuration.analyzerSettings().historySize()));
+        return messages.stream().filter(mes -> !mes.bot()).toList();
+    }
+
     public MessageContext getCombinedContext(Message message, @Nullable Settings settings) {
         return getCombinedContext(message.getMember(), message, settings);
     }
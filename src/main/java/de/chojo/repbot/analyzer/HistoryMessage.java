@@ -0,0 +1,20 @@
+package de.chojo.repbot.analyzer;
+
+import net.dv8tion.jda.api.entities.Message;
+
+import java.time.Instant;
+
+/**
+ * Lightweight snapshot of a message in a channel history.
+ *
+ * @param id       id of the message
+ * @param authorId id of the author
+ * @param created  creation time of the message
+ * @param bot      true if the author is a bot or webhook
+ */
+public record HistoryMessage(long id, long authorId, Instant created, boolean bot) {
+    public static HistoryMessage of(Message message) {
+        return new HistoryMessage(message.getIdLong(), message.getAuthor().getIdLong(),
+                message.getTimeCreated().toInstant(), message.getAuthor().isBot());
+    }
+}
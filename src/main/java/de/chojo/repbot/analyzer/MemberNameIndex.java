@@ -0,0 +1,258 @@
+package de.chojo.repbot.analyzer;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import de.chojo.jdautil.parsing.DiscordResolver;
+import de.chojo.jdautil.parsing.WeightedEntry;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.events.guild.GuildLeaveEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberJoinEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberRemoveEvent;
+import net.dv8tion.jda.api.events.guild.member.update.GuildMemberUpdateNicknameEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.events.user.update.UserUpdateNameEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Trigram index of the names of cached guild members.
+ * <p>
+ * The index is used to reduce the members which need to be scored by a fuzzy search to the members which share at
+ * least one trigram of their user name or nickname with the searched word. The effective name is always one of both.
+ * The scoring itself is still done by {@link DiscordResolver}, which keeps the scores of the returned entries
+ * unchanged.
+ * <p>
+ * Indices are built on first use on the executor. Until then the search falls back to a full search. Afterwards they
+ * are kept up to date by member, name update and message events. Members can enter and leave the member cache without
+ * an event, so all indices are reconciled with the member cache every {@link #RECONCILE_INTERVAL} minutes. Members
+ * which left the cache in between are skipped when candidates are resolved.
+ */
+public class MemberNameIndex extends ListenerAdapter {
+    private static final Logger log = getLogger(MemberNameIndex.class);
+    // ids and mentions are resolved directly and are not part of the name index
+    private static final Pattern SNOWFLAKE = Pattern.compile("[0-9]{17,}");
+    private static final char PADDING = '\0';
+    private static final long RECONCILE_INTERVAL = 10;
+    private final Cache<Long, GuildIndex> indices = CacheBuilder.newBuilder()
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .build();
+    private final Executor executor;
+
+    private MemberNameIndex(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Creates a new member name index.
+     *
+     * @param executor executor to build and reconcile the indices
+     * @return member name index
+     */
+    public static MemberNameIndex create(ScheduledExecutorService executor) {
+        var index = new MemberNameIndex(executor);
+        executor.scheduleAtFixedRate(index::reconcile, RECONCILE_INTERVAL, RECONCILE_INTERVAL, TimeUnit.MINUTES);
+        return index;
+    }
+
+    /**
+     * Performs a fuzzy search on the members of the guild.
+     * <p>
+     * Yields the same weights as {@link DiscordResolver#fuzzyGuildUserSearch(Guild, String)}, but only for members
+     * which share a trigram with the word.
+     *
+     * @param guild guild to search
+     * @param word  word to search
+     * @return weighted members
+     */
+    public List<WeightedEntry<Member>> fuzzyGuildUserSearch(Guild guild, String word) {
+        if (SNOWFLAKE.matcher(word).find()) return DiscordResolver.fuzzyGuildUserSearch(guild, word);
+        var index = index(guild);
+        if (index == null || !index.isReady()) return DiscordResolver.fuzzyGuildUserSearch(guild, word);
+
+        var candidates = index.candidates(guild, word);
+        if (candidates.isEmpty()) return Collections.emptyList();
+        return DiscordResolver.fuzzyGuildTargetSearch(word, candidates);
+    }
+
+    @Override
+    public void onGuildMemberJoin(@NotNull GuildMemberJoinEvent event) {
+        var index = indices.getIfPresent(event.getGuild().getIdLong());
+        if (index != null) index.add(event.getMember());
+    }
+
+    @Override
+    public void onGuildMemberRemove(@NotNull GuildMemberRemoveEvent event) {
+        var index = indices.getIfPresent(event.getGuild().getIdLong());
+        if (index != null) index.remove(event.getUser().getIdLong());
+    }
+
+    @Override
+    public void onGuildMemberUpdateNickname(@NotNull GuildMemberUpdateNicknameEvent event) {
+        var index = indices.getIfPresent(event.getGuild().getIdLong());
+        if (index != null) index.add(event.getMember());
+    }
+
+    @Override
+    public void onUserUpdateName(@NotNull UserUpdateNameEvent event) {
+        for (var guild : event.getUser().getMutualGuilds()) {
+            var index = indices.getIfPresent(guild.getIdLong());
+            if (index == null) continue;
+            var member = guild.getMember(event.getUser());
+            if (member != null) index.add(member);
+        }
+    }
+
+    @Override
+    public void onMessageReceived(@NotNull MessageReceivedEvent event) {
+        // Members are mostly loaded into the cache when they write a message.
+        if (!event.isFromGuild() || event.getMember() == null) return;
+        var index = indices.getIfPresent(event.getGuild().getIdLong());
+        if (index != null) index.addIfAbsent(event.getMember());
+    }
+
+    @Override
+    public void onGuildLeave(@NotNull GuildLeaveEvent event) {
+        indices.invalidate(event.getGuild().getIdLong());
+    }
+
+    private void reconcile() {
+        for (var index : indices.asMap().values()) {
+            try {
+                index.reconcile();
+            } catch (RuntimeException e) {
+                log.error("Could not reconcile member name index", e);
+            }
+        }
+    }
+
+    private GuildIndex index(Guild guild) {
+        try {
+            var index = indices.get(guild.getIdLong(), () -> {
+                var created = new GuildIndex(guild);
+                executor.execute(created::reconcile);
+                return created;
+            });
+            // the guild object is replaced when the shard reconnects
+            index.guild(guild);
+            return index;
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            log.error("Could not create member name index", e);
+        }
+        return null;
+    }
+
+    private static long[] grams(String name) {
+        if (name == null || name.isEmpty()) return new long[0];
+        var padded = PADDING + name.toLowerCase(Locale.ROOT) + PADDING;
+        var grams = new long[padded.length() - 2];
+        for (var i = 0; i < grams.length; i++) {
+            grams[i] = (long) padded.charAt(i) << 32 | (long) padded.charAt(i + 1) << 16 | padded.charAt(i + 2);
+        }
+        return grams;
+    }
+
+    private static class GuildIndex {
+        private final Map<Long, Set<Long>> members = new HashMap<>();
+        private final Map<Long, long[]> memberGrams = new HashMap<>();
+        private volatile Guild guild;
+        private volatile boolean ready;
+
+        GuildIndex(Guild guild) {
+            this.guild = guild;
+        }
+
+        void guild(Guild guild) {
+            this.guild = guild;
+        }
+
+        boolean isReady() {
+            return ready;
+        }
+
+        synchronized void add(Member member) {
+            remove(member.getIdLong());
+            var name = grams(member.getUser().getName());
+            var nick = grams(member.getNickname());
+            var grams = new long[name.length + nick.length];
+            System.arraycopy(name, 0, grams, 0, name.length);
+            System.arraycopy(nick, 0, grams, name.length, nick.length);
+            for (var gram : grams) {
+                members.computeIfAbsent(gram, k -> new HashSet<>()).add(member.getIdLong());
+            }
+            memberGrams.put(member.getIdLong(), grams);
+        }
+
+        synchronized void addIfAbsent(Member member) {
+            if (memberGrams.containsKey(member.getIdLong())) return;
+            add(member);
+        }
+
+        synchronized void remove(long id) {
+            var grams = memberGrams.remove(id);
+            if (grams == null) return;
+            for (var gram : grams) {
+                var ids = members.get(gram);
+                if (ids == null) continue;
+                ids.remove(id);
+                if (ids.isEmpty()) members.remove(gram);
+            }
+        }
+
+        synchronized List<Member> candidates(Guild guild, String word) {
+            Set<Long> ids = new HashSet<>();
+            for (var gram : grams(word)) {
+                var gramMembers = members.get(gram);
+                if (gramMembers != null) ids.addAll(gramMembers);
+            }
+            List<Member> candidates = new ArrayList<>(ids.size());
+            for (var id : ids) {
+                // the member might have left the cache since the last reconcile
+                var member = guild.getMemberById(id);
+                if (member != null) candidates.add(member);
+            }
+            return candidates;
+        }
+
+        /**
+         * Adds members which entered the cache and removes members which left the cache without an event.
+         * <p>
+         * The index is only locked per member, so searches are not blocked while the cache is scanned.
+         */
+        void reconcile() {
+            var guild = this.guild;
+            Set<Long> cached = new HashSet<>();
+            guild.getMemberCache().forEach(member -> {
+                cached.add(member.getIdLong());
+                addIfAbsent(member);
+            });
+            List<Long> indexed;
+            synchronized (this) {
+                indexed = new ArrayList<>(memberGrams.keySet());
+            }
+            for (var id : indexed) {
+                // members which joined after the scan are added again by their events
+                if (!cached.contains(id) && guild.getMemberById(id) == null) remove(id);
+            }
+            ready = true;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package de.chojo.repbot.analyzer;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Resolves guild members by their ids.
+ * <p>
+ * Members are taken from the member cache if possible. All remaining members are requested with a single member
+ * request over the gateway. Users which are not a member of the guild are remembered for a short time and are not
+ * requested again.
+ */
+public class MemberResolver {
+    private static final Logger log = getLogger(MemberResolver.class);
+    // max amount of user ids per member request
+    private static final int REQUEST_SIZE = 100;
+    private final Cache<MemberKey, Boolean> missing = CacheBuilder.newBuilder()
+            .expireAfterWrite(1, TimeUnit.MINUTES)
+            .maximumSize(100000)
+            .build();
+
+    /**
+     * Resolve the members of a guild.
+     * <p>
+     * Ids of users which are not a member of the guild are ignored.
+     *
+     * @param guild guild of the members
+     * @param ids   user ids
+     * @return future which completes with the resolved members
+     */
+    public CompletableFuture<Set<Member>> resolve(Guild guild, Collection<Long> ids) {
+        Set<Member> members = new HashSet<>();
+        List<Long> request = new ArrayList<>();
+        for (var id : new HashSet<>(ids)) {
+            var member = guild.getMemberById(id);
+            if (member != null) {
+                members.add(member);
+            } else if (missing.getIfPresent(new MemberKey(guild.getIdLong(), id)) == null) {
+                request.add(id);
+            }
+        }
+        if (request.isEmpty()) return CompletableFuture.completedFuture(members);
+
+        List<CompletableFuture<Set<Member>>> requests = new ArrayList<>();
+        for (var start = 0; start < request.size(); start += REQUEST_SIZE) {
+            requests.add(request(guild, request.subList(start, Math.min(start + REQUEST_SIZE, request.size()))));
+        }
+
+        return CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new))
+                .thenApply(v -> {
+                    requests.forEach(future -> members.addAll(future.join()));
+                    return members;
+                });
+    }
+
+    private CompletableFuture<Set<Member>> request(Guild guild, List<Long> ids) {
+        var future = new CompletableFuture<Set<Member>>();
+        guild.retrieveMembersByIds(ids)
+                .onSuccess(result -> {
+                    Set<Long> found = new HashSet<>();
+                    result.forEach(member -> found.add(member.getIdLong()));
+                    ids.stream()
+                            .filter(id -> !found.contains(id))
+                            .forEach(id -> missing.put(new MemberKey(guild.getIdLong(), id), true));
+                    future.complete(new HashSet<>(result));
+                })
+                .onError(err -> {
+                    // failed requests are not remembered as missing members
+                    log.warn("Could not retrieve members of guild {}", guild.getId(), err);
+                    future.complete(Set.of());
+                });
+        return future;
+    }
+
+    private record MemberKey(long guildId, long userId) {
+    }
+}
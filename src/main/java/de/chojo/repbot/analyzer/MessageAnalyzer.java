@@ -4,6 +4,8 @@ import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import de.chojo.jdautil.parsing.DiscordResolver;
 import de.chojo.jdautil.parsing.WeightedEntry;
+import de.chojo.repbot.analyzer.matching.ThankwordMatcher;
+import de.chojo.repbot.analyzer.matching.WordScanner;
 import de.chojo.repbot.config.Configuration;
 import de.chojo.repbot.dao.access.guild.settings.Settings;
 import de.chojo.repbot.dao.provider.Metrics;
@@ -11,32 +13,44 @@ import de.chojo.repbot.statistic.Statistic;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.entities.MessageType;
+import net.dv8tion.jda.api.entities.User;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
 public class MessageAnalyzer {
     private static final int LOOKAROUND = 6;
+    private static final ThreadLocal<WordScanner> SCANNER = ThreadLocal.withInitial(WordScanner::new);
     private static final Logger log = getLogger(MessageAnalyzer.class);
     private final ContextResolver contextResolver;
+    private final MemberNameIndex memberNameIndex;
+    private final MemberResolver memberResolver;
     private final Cache<Long, AnalyzerResult> resultCache = CacheBuilder.newBuilder()
             .expireAfterWrite(10, TimeUnit.MINUTES)
             .maximumSize(100000)
             .build();
     private final Configuration configuration;
     private final Metrics metrics;
+    private final LongAdder prefilterChecked = new LongAdder();
+    private final LongAdder prefilterRejected = new LongAdder();
 
-    public MessageAnalyzer(ContextResolver resolver, Configuration configuration, Metrics metrics) {
+    public MessageAnalyzer(ContextResolver resolver, MemberNameIndex memberNameIndex, MemberResolver memberResolver,
+                           Configuration configuration, Metrics metrics) {
         contextResolver = resolver;
+        this.memberNameIndex = memberNameIndex;
+        this.memberResolver = memberResolver;
         this.configuration = configuration;
         this.metrics = metrics;
     }
@@ -44,7 +58,7 @@ public class MessageAnalyzer {
     /**
      * Analyze a message.
      *
-     * @param pattern      regex pattern for targetwords
+     * @param matcher      matcher for the thankwords of the guild
      * @param message      message to analyze
      * @param settings     settings of the guild
      * @param limitTargets true if targets should be limited to users which have written in the channel in the
@@ -52,31 +66,50 @@ public class MessageAnalyzer {
      * @param limit        limit for returned matches in the analyzer result
      * @return analyzer results
      */
-    public AnalyzerResult processMessage(Pattern pattern, @NotNull Message message, Settings settings, boolean limitTargets, int limit) {
+    public AnalyzerResult processMessage(ThankwordMatcher matcher, @NotNull Message message, @Nullable Settings settings, boolean limitTargets, int limit) {
+        return processMessage(matcher, contextResolver.evaluation(message, settings), limitTargets, limit);
+    }
+
+    /**
+     * Analyze the message of an evaluation.
+     * <p>
+     * The context of the evaluation is resolved when the targets are limited.
+     *
+     * @param matcher      matcher for the thankwords of the guild
+     * @param evaluation   evaluation of the message to analyze
+     * @param limitTargets true if targets should be limited to users which have written in the channel in the
+     *                     maxHistoryAge
+     * @param limit        limit for returned matches in the analyzer result
+     * @return analyzer results
+     */
+    public AnalyzerResult processMessage(ThankwordMatcher matcher, MessageEvaluation evaluation, boolean limitTargets, int limit) {
         try {
-            return resultCache.get(message.getIdLong(), () -> analyze(pattern, message, settings, limitTargets, limit));
+            return resultCache.get(evaluation.message().getIdLong(), () -> analyze(matcher, evaluation, limitTargets, limit));
         } catch (ExecutionException e) {
             log.error("Could not compute anaylzer result", e);
         }
         return AnalyzerResult.noMatch();
     }
 
-    private AnalyzerResult analyze(Pattern pattern, Message message, @Nullable Settings settings, boolean limitTargets, int limit) {
+    private AnalyzerResult analyze(ThankwordMatcher matcher, MessageEvaluation evaluation, boolean limitTargets, int limit) {
+        var message = evaluation.message();
         metrics.messages().countMessage();
-        if (pattern.pattern().isBlank()) return AnalyzerResult.noMatch();
+        if (matcher.isEmpty()) return AnalyzerResult.noMatch();
+        if (!prefilter(matcher, message)) return AnalyzerResult.noMatch();
         var contentRaw = message.getContentRaw().toLowerCase();
 
-        if (!pattern.matcher(contentRaw).find()) return AnalyzerResult.noMatch();
+        if (!matcher.find(contentRaw)) return AnalyzerResult.noMatch();
         if (message.getType() == MessageType.INLINE_REPLY) {
 
             var referencedMessage = message.getReferencedMessage();
             if (referencedMessage == null) return AnalyzerResult.noMatch();
 
-            Member user;
-
-            try {
-                user = message.getGuild().retrieveMemberById(referencedMessage.getAuthor().getIdLong()).complete();
-            } catch (RuntimeException e) {
+            var user = referencedMessage.getMember();
+            if (user == null) {
+                user = memberResolver.resolve(message.getGuild(), List.of(referencedMessage.getAuthor().getIdLong()))
+                        .join().stream().findFirst().orElse(null);
+            }
+            if (user == null) {
                 log.debug("Could not retrieve member. Probably not on guild anymore.");
                 return AnalyzerResult.noMatch();
             }
@@ -84,70 +117,117 @@ public class MessageAnalyzer {
             return AnalyzerResult.answer(message.getMember(), user, referencedMessage);
         }
 
-        var context = MessageContext.byMessage(message);
-        if (limitTargets) {
-            context = contextResolver.getCombinedContext(message, settings);
-        }
-
         var mentionedMembers = message.getMentions().getUsers();
         if (!mentionedMembers.isEmpty()) {
             if (mentionedMembers.size() > limit) {
-                return resolveMessage(message, pattern, context, limitTargets, limit);
+                return resolveMessage(evaluation, matcher, limitTargets, limit);
             }
 
-            List<Member> members = new ArrayList<>();
-
-            for (var mentionedMember : mentionedMembers) {
-                try {
-                    members.add(message.getGuild().retrieveMemberById(mentionedMember.getIdLong()).complete());
-                } catch (RuntimeException e) {
-                    log.debug("Could not retrieve member. Probably not on guild anymore.");
-                }
-            }
+            var members = mentionedMembers(message, mentionedMembers);
 
             if (members.isEmpty()) return AnalyzerResult.noMatch();
 
             return AnalyzerResult.mention(message.getMember(), members);
         }
-        return resolveMessage(message, pattern, context, limitTargets, limit);
+        return resolveMessage(evaluation, matcher, limitTargets, limit);
     }
 
+    /**
+     * Get the members of the mentioned users.
+     * <p>
+     * Members are taken from the message payload. Only users without member data are resolved.
+     *
+     * @param message message with mentions
+     * @param users   mentioned users
+     * @return members in the order of the mentioned users. Users which are not a member of the guild are skipped.
+     */
+    private List<Member> mentionedMembers(Message message, List<User> users) {
+        Map<Long, Member> members = new HashMap<>();
+        for (var member : message.getMentions().getMembers()) {
+            members.put(member.getIdLong(), member);
+        }
+        var missing = users.stream()
+                .map(User::getIdLong)
+                .filter(id -> !members.containsKey(id))
+                .toList();
+        if (!missing.isEmpty()) {
+            for (var member : memberResolver.resolve(message.getGuild(), missing).join()) {
+                members.put(member.getIdLong(), member);
+            }
+        }
+        return users.stream()
+                .map(user -> members.get(user.getIdLong()))
+                .filter(Objects::nonNull)
+                .toList();
+    }
 
-    private AnalyzerResult resolveMessage(Message message, Pattern thankPattern, MessageContext targets, boolean limitTargets, int limit) {
-        var contentRaw = message.getContentRaw();
+    /**
+     * Rejects messages which can not contain a thankword before the content is converted and matched.
+     *
+     * @param matcher matcher for the thankwords of the guild
+     * @param message message to check
+     * @return false if the message does not contain a thankword
+     */
+    private boolean prefilter(ThankwordMatcher matcher, Message message) {
+        prefilterChecked.increment();
+        if (matcher.mayMatch(message.getContentRaw())) return true;
+        prefilterRejected.increment();
+        return false;
+    }
 
-        var words = new ArrayList<>(List.of(contentRaw.split("\\s")));
-        words.removeIf(String::isBlank);
+    /**
+     * Amount of messages checked by the prefilter.
+     *
+     * @return checked messages
+     */
+    public long prefilterChecked() {
+        return prefilterChecked.sum();
+    }
 
-        List<Integer> thankWordIndices = new ArrayList<>();
-        var index = 0;
-        for (var word : words) {
-            if (thankPattern.matcher(word).find()) {
-                thankWordIndices.add(index);
-            }
-        }
-        List<WeightedEntry<Member>> users = new ArrayList<>();
+    /**
+     * Amount of messages rejected by the prefilter.
+     *
+     * @return rejected messages
+     */
+    public long prefilterRejected() {
+        return prefilterRejected.sum();
+    }
 
-        for (var thankwordindex : thankWordIndices) {
-            List<String> resolve = new ArrayList<>();
+    /**
+     * Ratio of messages rejected by the prefilter.
+     *
+     * @return ratio between 0 and 1
+     */
+    public double prefilterRejectRatio() {
+        var checked = prefilterChecked();
+        return checked == 0 ? 0 : (double) prefilterRejected() / checked;
+    }
 
-            if (thankwordindex != 0) {
-                resolve.addAll(words.subList(Math.max(0, thankwordindex - LOOKAROUND), thankwordindex));
-            }
-            if (thankwordindex != words.size() - 1) {
-                resolve.addAll(words.subList(Math.min(thankwordindex + 1, words.size() - 1), Math.min(words.size(), thankwordindex + LOOKAROUND + 1)));
-            }
+    private AnalyzerResult resolveMessage(MessageEvaluation evaluation, ThankwordMatcher matcher, boolean limitTargets, int limit) {
+        var message = evaluation.message();
+        var contentRaw = message.getContentRaw();
+        var scanner = SCANNER.get().scan(contentRaw, matcher);
+        var candidates = scanner.candidates(LOOKAROUND);
+        if (candidates == 0) return AnalyzerResult.noTarget(message.getMember());
+
+        // fuzzy results would be discarded. The context is not needed to find them.
+        var settings = evaluation.settings();
+        if (limitTargets && settings != null && !settings.reputation().isFuzzyActive()) {
+            return AnalyzerResult.noTarget(message.getMember());
+        }
 
-            for (var word : resolve) {
-                List<WeightedEntry<Member>> weightedMembers;
-                if (limitTargets) {
-                    weightedMembers = DiscordResolver.fuzzyGuildTargetSearch(word, targets.members());
-                } else {
-                    weightedMembers = DiscordResolver.fuzzyGuildUserSearch(message.getGuild(), word);
-                }
-                if (weightedMembers.isEmpty()) continue;
-                users.addAll(weightedMembers);
+        var targets = limitTargets ? evaluation.context() : null;
+        List<WeightedEntry<Member>> users = new ArrayList<>();
+        for (var i = 0; i < candidates; i++) {
+            var word = scanner.word(scanner.candidate(i));
+            List<WeightedEntry<Member>> weightedMembers;
+            if (limitTargets) {
+                weightedMembers = DiscordResolver.fuzzyGuildTargetSearch(word, targets.members());
+            } else {
+                weightedMembers = memberNameIndex.fuzzyGuildUserSearch(message.getGuild(), word);
             }
+            if (weightedMembers.isEmpty()) continue;
+            users.addAll(weightedMembers);
         }
 
         var members = users.stream()
@@ -9,7 +9,6 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
-import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -17,8 +16,8 @@ public class MessageContext implements MemberHolder {
     private final Set<Long> userIds = new HashSet<>();
     private final Set<Member> members = new HashSet<>();
     private final Set<User> users = new HashSet<>();
-    private final Set<Message> rawMessages = new LinkedHashSet<>();
-    private final Set<Message> contextMessages = new LinkedHashSet<>();
+    private final Set<HistoryMessage> rawMessages = new LinkedHashSet<>();
+    private final Set<HistoryMessage> contextMessages = new LinkedHashSet<>();
     private final Member target;
     private Message message;
 
@@ -44,11 +43,11 @@ public class MessageContext implements MemberHolder {
         users.addAll(members.stream().map(Member::getUser).toList());
     }
 
-    public void addRawMessages(Collection<Message> messages) {
+    public void addRawMessages(Collection<HistoryMessage> messages) {
         rawMessages.addAll(messages);
     }
 
-    public void addContextMessages(Collection<Message> messages) {
+    public void addContextMessages(Collection<HistoryMessage> messages) {
         contextMessages.addAll(messages);
     }
 
@@ -57,11 +56,11 @@ public class MessageContext implements MemberHolder {
         users.add(member.getUser());
     }
 
-    public void addRawMessage(Message message) {
+    public void addRawMessage(HistoryMessage message) {
         rawMessages.add(message);
     }
 
-    public void addContextMessage(Message message) {
+    public void addContextMessage(HistoryMessage message) {
         contextMessages.add(message);
     }
 
@@ -83,28 +82,40 @@ public class MessageContext implements MemberHolder {
         return target;
     }
 
-    public Set<Message> rawMessages() {
+    public Set<HistoryMessage> rawMessages() {
         return Collections.unmodifiableSet(rawMessages);
     }
 
-    public Set<Message> contextMessages() {
+    public Set<HistoryMessage> contextMessages() {
         return Collections.unmodifiableSet(contextMessages);
     }
 
-    public Set<Message> latestMessages(int limit) {
+    public Set<HistoryMessage> latestMessages(int limit) {
         return rawMessages().stream().limit(limit).collect(Collectors.toCollection(LinkedHashSet::new));
     }
 
     /**
-     * Resolves the guild members by the stored {@link #userIds}
+     * Checks if the message is one of the latest messages.
      *
+     * @param message message
+     * @param limit   amount of latest messages
+     * @return true if the message is part of the latest messages
+     */
+    public boolean isLatestMessage(Message message, int limit) {
+        return rawMessages.stream().limit(limit).anyMatch(mes -> mes.id() == message.getIdLong());
+    }
+
+    /**
+     * Resolves the guild members by the stored {@link #userIds} which are not resolved yet.
+     *
+     * @param resolver resolver to retrieve the members
      * @return self for chaining
      */
-    public MessageContext resolve() {
-        addMembers(userIds.stream()
-                .map(id -> guild().retrieveMemberById(id).onErrorMap(e -> null).complete())
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet()));
+    public MessageContext resolve(MemberResolver resolver) {
+        var resolved = members.stream().map(Member::getIdLong).collect(Collectors.toSet());
+        var unresolved = userIds.stream().filter(id -> !resolved.contains(id)).toList();
+        if (unresolved.isEmpty()) return this;
+        addMembers(resolver.resolve(guild(), unresolved).join());
         return this;
     }
 
@@ -0,0 +1,100 @@
+package de.chojo.repbot.analyzer;
+
+import de.chojo.repbot.dao.access.guild.settings.Settings;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Message;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Evaluation of a single message.
+ * <p>
+ * An evaluation is created once per message and shared by the analysis, the abuse protection and the vote
+ * registration. Nothing is resolved up front. The channel history and the combined context of the message are resolved
+ * on first access and reused afterwards, so checks which are disabled by the guild settings never pay for them.
+ */
+public class MessageEvaluation {
+    private final Member donor;
+    private final Message message;
+    @Nullable
+    private final Settings settings;
+    private final Supplier<MessageContext> contextSupplier;
+    private final Supplier<List<HistoryMessage>> historySupplier;
+    private MessageContext context;
+    private List<HistoryMessage> history;
+
+    MessageEvaluation(Member donor, Message message, @Nullable Settings settings, Supplier<MessageContext> contextSupplier,
+                      Supplier<List<HistoryMessage>> historySupplier) {
+        this.donor = donor;
+        this.message = message;
+        this.settings = settings;
+        this.contextSupplier = contextSupplier;
+        this.historySupplier = historySupplier;
+    }
+
+    /**
+     * Get the combined context of the message.
+     *
+     * @return context of the message
+     */
+    public synchronized MessageContext context() {
+        if (context == null) context = contextSupplier.get();
+        return context;
+    }
+
+    /**
+     * Checks if the context was already resolved.
+     *
+     * @return true if the context was resolved
+     */
+    public synchronized boolean isContextResolved() {
+        return context != null;
+    }
+
+    /**
+     * Checks if a message is one of the latest messages in the channel.
+     * <p>
+     * This only requires the channel history and does not resolve the context.
+     *
+     * @param other message to check
+     * @param limit amount of latest messages
+     * @return true if the message is part of the latest messages
+     */
+    public boolean isLatestMessage(Message other, int limit) {
+        synchronized (this) {
+            if (context != null) return context.isLatestMessage(other, limit);
+            if (history == null) history = historySupplier.get();
+        }
+        return history.stream().limit(limit).anyMatch(mes -> mes.id() == other.getIdLong());
+    }
+
+    public Message message() {
+        return message;
+    }
+
+    /**
+     * The member whose context is evaluated. This is the author of the message or the member who reacted to it.
+     *
+     * @return donor member
+     */
+    public Member donor() {
+        return donor;
+    }
+
+    public Guild guild() {
+        return message.getGuild();
+    }
+
+    /**
+     * The settings of the guild at the time the message was received.
+     *
+     * @return settings of the guild
+     */
+    @Nullable
+    public Settings settings() {
+        return settings;
+    }
+}
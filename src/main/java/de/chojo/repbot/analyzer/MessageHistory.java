@@ -0,0 +1,128 @@
+package de.chojo.repbot.analyzer;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import de.chojo.repbot.config.Configuration;
+import de.chojo.repbot.dao.provider.Guilds;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.MessageChannel;
+import net.dv8tion.jda.api.events.ReconnectedEvent;
+import net.dv8tion.jda.api.events.message.MessageBulkDeleteEvent;
+import net.dv8tion.jda.api.events.message.MessageDeleteEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.events.message.MessageUpdateEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Keeps the recent message history of thank channels in memory.
+ * <p>
+ * A history is created with the first message in a thank channel and is updated by message events afterwards. The
+ * messages before the first tracked message are retrieved once when the history is requested for the first time.
+ * Messages are only retrieved from discord when the history of a channel is unknown or does not reach back far
+ * enough.
+ */
+public class MessageHistory extends ListenerAdapter {
+    private static final Logger log = getLogger(MessageHistory.class);
+    private final Guilds guilds;
+    private final Configuration configuration;
+    private final Cache<Long, ChannelHistory> histories = CacheBuilder.newBuilder()
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .maximumSize(10000)
+            .build();
+
+    public MessageHistory(Guilds guilds, Configuration configuration) {
+        this.guilds = guilds;
+        this.configuration = configuration;
+    }
+
+    /**
+     * Get the latest messages before a message in the channel of the message.
+     *
+     * @param message message
+     * @param limit   max amount of messages
+     * @return messages sorted from new to old
+     */
+    public List<HistoryMessage> before(Message message, int limit) {
+        var history = histories.getIfPresent(message.getChannel().getIdLong());
+        if (history != null) {
+            var messages = history.before(message.getIdLong(), limit);
+            if (messages.isPresent()) return messages.get();
+            if (!history.isSeeded()) {
+                seed(history, message.getChannel(), limit);
+                messages = history.before(message.getIdLong(), limit);
+                if (messages.isPresent()) return messages.get();
+            }
+        }
+        log.trace("Retrieving history of channel {}", message.getChannel().getId());
+        return retrieve(message.getChannel(), message.getIdLong(), limit);
+    }
+
+    @Override
+    public void onMessageReceived(@NotNull MessageReceivedEvent event) {
+        if (!event.isFromGuild()) return;
+        if (!guilds.guild(event.getGuild()).settings().thanking().channels().isEnabled(event.getGuildChannel())) {
+            return;
+        }
+        var history = history(event.getChannel().getIdLong());
+        if (history != null) history.add(HistoryMessage.of(event.getMessage()));
+    }
+
+    @Override
+    public void onMessageUpdate(@NotNull MessageUpdateEvent event) {
+        var history = histories.getIfPresent(event.getChannel().getIdLong());
+        if (history != null) history.update(HistoryMessage.of(event.getMessage()));
+    }
+
+    @Override
+    public void onMessageDelete(@NotNull MessageDeleteEvent event) {
+        var history = histories.getIfPresent(event.getChannel().getIdLong());
+        if (history != null) history.remove(event.getMessageIdLong());
+    }
+
+    @Override
+    public void onMessageBulkDelete(@NotNull MessageBulkDeleteEvent event) {
+        var history = histories.getIfPresent(event.getChannel().getIdLong());
+        if (history == null) return;
+        for (var id : event.getMessageIds()) {
+            history.remove(Long.parseLong(id));
+        }
+    }
+
+    @Override
+    public void onReconnected(@NotNull ReconnectedEvent event) {
+        // Events might have been missed while the session was lost.
+        histories.invalidateAll();
+    }
+
+    private void seed(ChannelHistory history, MessageChannel channel, int limit) {
+        var oldest = history.oldest();
+        if (oldest.isEmpty()) return;
+        var messages = retrieve(channel, oldest.get(), limit);
+        history.seed(messages, messages.size() < limit);
+    }
+
+    private List<HistoryMessage> retrieve(MessageChannel channel, long messageId, int limit) {
+        return channel.getHistoryBefore(messageId, limit).complete()
+                .getRetrievedHistory()
+                .stream()
+                .map(HistoryMessage::of)
+                .toList();
+    }
+
+    private ChannelHistory history(long channelId) {
+        try {
+            return histories.get(channelId, () -> new ChannelHistory(Math.max(1, configuration.analyzerSettings().historySize() * 2)));
+        } catch (ExecutionException e) {
+            log.error("Could not create channel history", e);
+        }
+        return null;
+    }
+}
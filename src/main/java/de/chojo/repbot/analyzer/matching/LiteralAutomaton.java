@@ -0,0 +1,180 @@
+package de.chojo.repbot.analyzer.matching;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton over a set of literal words.
+ * <p>
+ * Matching is case insensitive and only accepts hits which are surrounded by word boundaries, like {@code \b} would in
+ * a regular expression.
+ * <p>
+ * The automaton is immutable after creation and can be shared between threads.
+ */
+final class LiteralAutomaton {
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    // sorted transition characters and their target states per state
+    private final char[][] keys;
+    private final int[][] targets;
+    private final int[] fail;
+    // length of the word ending in this state or 0 if no word ends here
+    private final int[] length;
+    // next state on the fail chain where a word ends
+    private final int[] output;
+
+    private LiteralAutomaton(char[][] keys, int[][] targets, int[] fail, int[] length, int[] output) {
+        this.keys = keys;
+        this.targets = targets;
+        this.fail = fail;
+        this.length = length;
+        this.output = output;
+    }
+
+    /**
+     * Build an automaton for the words.
+     *
+     * @param words words. Must not be empty.
+     * @return new automaton
+     */
+    static LiteralAutomaton build(Collection<String> words) {
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<Integer> depth = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        depth.add(0);
+        var terminal = new ArrayList<Boolean>();
+        terminal.add(false);
+
+        for (var word : words) {
+            var state = ROOT;
+            for (var i = 0; i < word.length(); i++) {
+                var c = Character.toLowerCase(word.charAt(i));
+                var next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    depth.add(depth.get(state) + 1);
+                    terminal.add(false);
+                    trie.get(state).put(c, next);
+                }
+                state = next;
+            }
+            terminal.set(state, true);
+        }
+
+        var size = trie.size();
+        var keys = new char[size][];
+        var targets = new int[size][];
+        var fail = new int[size];
+        var length = new int[size];
+        var output = new int[size];
+
+        for (var state = 0; state < size; state++) {
+            var transitions = trie.get(state);
+            keys[state] = new char[transitions.size()];
+            targets[state] = new int[transitions.size()];
+            var i = 0;
+            for (var entry : transitions.entrySet()) {
+                keys[state][i] = entry.getKey();
+                targets[state][i] = entry.getValue();
+                i++;
+            }
+            length[state] = terminal.get(state) ? depth.get(state) : 0;
+        }
+
+        var automaton = new LiteralAutomaton(keys, targets, fail, length, output);
+
+        // compute fail and output links in breadth first order
+        fail[ROOT] = ROOT;
+        output[ROOT] = NONE;
+        var queue = new ArrayDeque<Integer>();
+        for (var child : targets[ROOT]) {
+            fail[child] = ROOT;
+            output[child] = NONE;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (var i = 0; i < keys[state].length; i++) {
+                var c = keys[state][i];
+                var child = targets[state][i];
+                var fallback = fail[state];
+                while (fallback != ROOT && automaton.transition(fallback, c) == NONE) {
+                    fallback = fail[fallback];
+                }
+                var target = automaton.transition(fallback, c);
+                fail[child] = target == NONE ? ROOT : target;
+                output[child] = length[fail[child]] != 0 ? fail[child] : output[fail[child]];
+                queue.add(child);
+            }
+        }
+        return automaton;
+    }
+
+    /**
+     * Checks if a word is contained in the region of the text.
+     * <p>
+     * The region bounds are treated as word boundaries.
+     *
+     * @param text  text to search
+     * @param start start of the region inclusive
+     * @param end   end of the region exclusive
+     * @return true if a word was found
+     */
+    boolean find(CharSequence text, int start, int end) {
+        var state = ROOT;
+        for (var i = start; i < end; i++) {
+            var c = Character.toLowerCase(text.charAt(i));
+            var next = transition(state, c);
+            while (next == NONE && state != ROOT) {
+                state = fail[state];
+                next = transition(state, c);
+            }
+            state = next == NONE ? ROOT : next;
+
+            for (var hit = length[state] != 0 ? state : output[state]; hit != NONE; hit = output[hit]) {
+                var wordStart = i + 1 - length[hit];
+                if (isBoundary(text, wordStart, start, end) && isBoundary(text, i + 1, start, end)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private int transition(int state, char c) {
+        var stateKeys = keys[state];
+        var low = 0;
+        var high = stateKeys.length - 1;
+        while (low <= high) {
+            var mid = (low + high) >>> 1;
+            var key = stateKeys[mid];
+            if (key < c) {
+                low = mid + 1;
+            } else if (key > c) {
+                high = mid - 1;
+            } else {
+                return targets[state][mid];
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Checks if the index is a word boundary. Words are always surrounded by word characters, so a boundary exists
+     * when the character on the outer side of the word is not a word character.
+     */
+    private static boolean isBoundary(CharSequence text, int index, int start, int end) {
+        if (index == start || index == end) return true;
+        return !isWordChar(text.charAt(index - 1)) || !isWordChar(text.charAt(index));
+    }
+
+    static boolean isWordChar(char c) {
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+}
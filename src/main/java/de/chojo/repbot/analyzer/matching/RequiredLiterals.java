@@ -0,0 +1,184 @@
+package de.chojo.repbot.analyzer.matching;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Extracts the literal fragments a text has to contain to be matched by a thankword pattern.
+ * <p>
+ * Only the top level of a pattern is inspected. Top level alternations result in one alternative per branch. Groups,
+ * character classes, escaped letters and optional characters are skipped and split the literals of a branch. Whitespace
+ * is ignored, like the {@link java.util.regex.Pattern#COMMENTS} flag of the thankword pattern does.
+ * <p>
+ * Patterns with constructs which might change the meaning of the remaining pattern, like inline flags, quoting or
+ * comments, are not inspected.
+ */
+final class RequiredLiterals {
+    private final String pattern;
+    private int pos;
+
+    private RequiredLiterals(String pattern) {
+        this.pattern = pattern;
+    }
+
+    /**
+     * Extract the required literals of a thankword.
+     *
+     * @param thankword thankword pattern
+     * @return one list of required literals per alternative or an empty optional if the pattern can not be inspected.
+     */
+    static Optional<List<List<String>>> extract(String thankword) {
+        if (hasUnsupportedConstruct(thankword)) return Optional.empty();
+        return Optional.ofNullable(new RequiredLiterals(thankword).alternatives());
+    }
+
+    private static boolean hasUnsupportedConstruct(String pattern) {
+        for (var i = 0; i < pattern.length() - 1; i++) {
+            var c = pattern.charAt(i);
+            var next = pattern.charAt(i + 1);
+            // inline flags
+            if (c == '(' && next == '?' && (i + 2 >= pattern.length() || ":=!<>".indexOf(pattern.charAt(i + 2)) < 0)) {
+                return true;
+            }
+            // quotes
+            if (c == '\\' && (next == 'Q' || next == 'E')) return true;
+            // skip escaped characters
+            if (c == '\\') i++;
+        }
+        // comments
+        return pattern.indexOf('#') >= 0;
+    }
+
+    private List<List<String>> alternatives() {
+        List<List<String>> alternatives = new ArrayList<>();
+        List<String> literals = new ArrayList<>();
+        var literal = new StringBuilder();
+        while (pos < pattern.length()) {
+            var c = pattern.charAt(pos);
+            if (ThankwordExpander.isPatternWhitespace(c)) {
+                pos++;
+                continue;
+            }
+            if (c == '|') {
+                pos++;
+                flush(literal, literals);
+                alternatives.add(literals);
+                literals = new ArrayList<>();
+                continue;
+            }
+            if (c == '(' || c == '[' || c == '.' || c == '^' || c == '$' || c == ']' || c == '}') {
+                flush(literal, literals);
+                if (c == '(' && !skipGroup()) return null;
+                if (c == '[' && !skipClass()) return null;
+                if (c != '(' && c != '[') pos++;
+                if (!skipQuantifier()) return null;
+                continue;
+            }
+            if (c == ')' || c == '?' || c == '*' || c == '+' || c == '{') return null;
+            int literalChar;
+            if (c == '\\') {
+                if (pos + 1 >= pattern.length()) return null;
+                var escaped = pattern.charAt(pos + 1);
+                if (Character.isLetterOrDigit(escaped)) {
+                    // character classes, boundaries, back references and control characters
+                    if ("pPxuckN0123456789".indexOf(escaped) >= 0) return null;
+                    flush(literal, literals);
+                    pos += 2;
+                    if (!skipQuantifier()) return null;
+                    continue;
+                }
+                literalChar = escaped;
+                pos += 2;
+            } else {
+                literalChar = pattern.codePointAt(pos);
+                pos += Character.charCount(literalChar);
+            }
+            skipWhitespace();
+            var quantifier = pos < pattern.length() ? pattern.charAt(pos) : 0;
+            if (quantifier == '?' || quantifier == '*' || quantifier == '{') {
+                // the character is optional
+                flush(literal, literals);
+                if (!skipQuantifier()) return null;
+                continue;
+            }
+            literal.appendCodePoint(literalChar);
+            // one or more repetitions keep the neighbours of the character
+            if (quantifier == '+' && !skipQuantifier()) return null;
+        }
+        flush(literal, literals);
+        alternatives.add(literals);
+        return alternatives;
+    }
+
+    private boolean skipGroup() {
+        var depth = 0;
+        while (pos < pattern.length()) {
+            var c = pattern.charAt(pos);
+            if (c == '\\') {
+                pos += 2;
+                continue;
+            }
+            if (c == '[') {
+                if (!skipClass()) return false;
+                continue;
+            }
+            pos++;
+            if (c == '(') depth++;
+            if (c == ')' && --depth == 0) return true;
+        }
+        return false;
+    }
+
+    private boolean skipClass() {
+        // opening bracket
+        pos++;
+        if (pos < pattern.length() && pattern.charAt(pos) == '^') pos++;
+        // a closing bracket at the start is a literal
+        if (pos < pattern.length() && pattern.charAt(pos) == ']') pos++;
+        while (pos < pattern.length()) {
+            var c = pattern.charAt(pos);
+            if (c == '\\') {
+                pos += 2;
+                continue;
+            }
+            if (c == '[') {
+                if (!skipClass()) return false;
+                continue;
+            }
+            pos++;
+            if (c == ']') return true;
+        }
+        return false;
+    }
+
+    private boolean skipQuantifier() {
+        skipWhitespace();
+        if (pos >= pattern.length()) return true;
+        var c = pattern.charAt(pos);
+        if (c == '{') {
+            var end = pattern.indexOf('}', pos);
+            if (end < 0) return false;
+            pos = end + 1;
+        } else if (c == '?' || c == '*' || c == '+') {
+            pos++;
+        } else {
+            return true;
+        }
+        skipWhitespace();
+        // lazy or possessive quantifiers
+        if (pos < pattern.length() && (pattern.charAt(pos) == '?' || pattern.charAt(pos) == '+')) pos++;
+        return true;
+    }
+
+    private void skipWhitespace() {
+        while (pos < pattern.length() && ThankwordExpander.isPatternWhitespace(pattern.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private static void flush(StringBuilder literal, List<String> literals) {
+        if (!literal.isEmpty()) literals.add(literal.toString());
+        literal.setLength(0);
+    }
+}
@@ -0,0 +1,108 @@
+package de.chojo.repbot.analyzer.matching;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Bitset of the characters and character pairs of a text, used to reject texts which can not contain a thankword.
+ * <p>
+ * Every alternative of every thankword is described by the characters and pairs of its required literals. A text can
+ * only be matched when all bits of at least one alternative are set in the bitset of the text. Characters are case
+ * folded, so the filter never rejects a text which is matched case insensitive.
+ */
+final class ShingleFilter {
+    private static final int BITS = 4096;
+    private static final int SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(BITS);
+    // marks a single character, since it is no valid code point
+    private static final int NONE = 0x1FFFFF;
+    // dot above, which is added by the lower case conversion of some locales
+    private static final int COMBINING_DOT = 0x0307;
+    private static final ThreadLocal<long[]> BUFFER = ThreadLocal.withInitial(() -> new long[BITS / Long.SIZE]);
+
+    // sorted bit indices of each alternative
+    private final int[][] alternatives;
+
+    private ShingleFilter(int[][] alternatives) {
+        this.alternatives = alternatives;
+    }
+
+    /**
+     * Build a filter for alternatives of required literals.
+     *
+     * @param alternatives required literals of each alternative
+     * @return filter or null if an alternative has no required literal and no text can be rejected
+     */
+    static ShingleFilter build(Collection<List<String>> alternatives) {
+        if (alternatives.isEmpty()) return null;
+        var bits = new int[alternatives.size()][];
+        var index = 0;
+        for (var literals : alternatives) {
+            var alternative = new TreeSet<Integer>();
+            for (var literal : literals) {
+                var previous = NONE;
+                for (var i = 0; i < literal.length(); ) {
+                    var codePoint = literal.codePointAt(i);
+                    i += Character.charCount(codePoint);
+                    if (codePoint == COMBINING_DOT) continue;
+                    var folded = fold(codePoint);
+                    alternative.add(bit(folded, NONE));
+                    if (previous != NONE) alternative.add(bit(previous, folded));
+                    previous = folded;
+                }
+            }
+            if (alternative.isEmpty()) return null;
+            bits[index++] = alternative.stream().mapToInt(Integer::intValue).toArray();
+        }
+        return new ShingleFilter(bits);
+    }
+
+    /**
+     * Checks if the text might be matched by a thankword.
+     *
+     * @param text text to check
+     * @return false if the text can not be matched
+     */
+    boolean mayMatch(CharSequence text) {
+        var set = BUFFER.get();
+        Arrays.fill(set, 0);
+        var previous = NONE;
+        for (var i = 0; i < text.length(); ) {
+            var codePoint = Character.codePointAt(text, i);
+            i += Character.charCount(codePoint);
+            if (codePoint == COMBINING_DOT) continue;
+            var folded = fold(codePoint);
+            set(set, bit(folded, NONE));
+            if (previous != NONE) set(set, bit(previous, folded));
+            previous = folded;
+        }
+        for (var alternative : alternatives) {
+            if (containsAll(set, alternative)) return true;
+        }
+        return false;
+    }
+
+    private static boolean containsAll(long[] set, int[] bits) {
+        for (var bit : bits) {
+            if ((set[bit >>> 6] & 1L << bit) == 0) return false;
+        }
+        return true;
+    }
+
+    private static void set(long[] set, int bit) {
+        set[bit >>> 6] |= 1L << bit;
+    }
+
+    private static int bit(int first, int second) {
+        var key = (long) first << 21 | second;
+        return (int) (key * 0x9E3779B97F4A7C15L >>> SHIFT);
+    }
+
+    /**
+     * Folds the case like a case insensitive pattern compares characters.
+     */
+    private static int fold(int codePoint) {
+        return Character.toLowerCase(Character.toUpperCase(codePoint));
+    }
+}
@@ -0,0 +1,160 @@
+package de.chojo.repbot.analyzer.matching;
+
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Expands simple thankword patterns into the finite set of literal words they match.
+ * <p>
+ * Supported are literal characters, escaped symbols, character classes without ranges like {@code [sx]}, non capturing
+ * or capturing groups with alternations like {@code (?:re)} and the {@code ?} quantifier. Whitespace is ignored, like
+ * the {@link java.util.regex.Pattern#COMMENTS} flag of the thankword pattern does.
+ * <p>
+ * Everything else is considered a real regex and will not be expanded.
+ */
+final class ThankwordExpander {
+    private static final int MAX_VARIANTS = 64;
+    private static final String META = "\\^$.|?*+()[]{}#";
+
+    private final String pattern;
+    private int pos;
+
+    private ThankwordExpander(String pattern) {
+        this.pattern = pattern;
+    }
+
+    /**
+     * Expand a thankword into literal words.
+     *
+     * @param thankword thankword pattern
+     * @return all literal words matched by the pattern or an empty optional if the pattern is no simple pattern.
+     */
+    static Optional<Set<String>> expand(String thankword) {
+        var expander = new ThankwordExpander(thankword);
+        var variants = expander.sequence(false);
+        if (variants == null || expander.pos != thankword.length()) return Optional.empty();
+        for (var variant : variants) {
+            // word boundaries only behave like literal boundaries when the word starts and ends with a word character
+            if (variant.isEmpty()) return Optional.empty();
+            if (!LiteralAutomaton.isWordChar(variant.charAt(0))) return Optional.empty();
+            if (!LiteralAutomaton.isWordChar(variant.charAt(variant.length() - 1))) return Optional.empty();
+        }
+        return Optional.of(variants);
+    }
+
+    private Set<String> sequence(boolean inGroup) {
+        Set<String> result = new LinkedHashSet<>();
+        result.add("");
+        while (pos < pattern.length()) {
+            var c = pattern.charAt(pos);
+            if (isPatternWhitespace(c)) {
+                pos++;
+                continue;
+            }
+            if (c == '|' || c == ')') {
+                // top level alternations are combined with the word boundaries in an unexpected way. Leave them to the regex.
+                return inGroup ? result : null;
+            }
+            var atom = atom();
+            if (atom == null) return null;
+            skipWhitespace();
+            if (pos < pattern.length()) {
+                var quantifier = pattern.charAt(pos);
+                if (quantifier == '?') {
+                    pos++;
+                    skipWhitespace();
+                    // lazy or possessive quantifiers
+                    if (pos < pattern.length() && "?+".indexOf(pattern.charAt(pos)) >= 0) return null;
+                    atom.add("");
+                } else if ("*+{".indexOf(quantifier) >= 0) {
+                    return null;
+                }
+            }
+            result = product(result, atom);
+            if (result == null) return null;
+        }
+        // groups need to be closed
+        return inGroup ? null : result;
+    }
+
+    private Set<String> atom() {
+        var c = pattern.charAt(pos);
+        if (c == '[') return characterClass();
+        if (c == '(') return group();
+        if (c == '\\') {
+            if (pos + 1 >= pattern.length()) return null;
+            var escaped = pattern.charAt(pos + 1);
+            // escaped letters and digits are character classes or back references
+            if (Character.isLetterOrDigit(escaped)) return null;
+            pos += 2;
+            return single(String.valueOf(escaped));
+        }
+        if (META.indexOf(c) >= 0) return null;
+        pos++;
+        return single(String.valueOf(c));
+    }
+
+    private Set<String> characterClass() {
+        pos++;
+        Set<String> result = new LinkedHashSet<>();
+        while (pos < pattern.length()) {
+            var c = pattern.charAt(pos++);
+            if (c == ']') return result.isEmpty() ? null : result;
+            // negations, ranges, escapes, nested classes and intersections
+            if ("^-\\[&".indexOf(c) >= 0 || isPatternWhitespace(c)) return null;
+            result.add(String.valueOf(c));
+        }
+        return null;
+    }
+
+    private Set<String> group() {
+        pos++;
+        if (pattern.startsWith("?:", pos)) {
+            pos += 2;
+        } else if (pos < pattern.length() && pattern.charAt(pos) == '?') {
+            // lookarounds, named groups and inline flags
+            return null;
+        }
+        Set<String> result = new LinkedHashSet<>();
+        while (true) {
+            var alternative = sequence(true);
+            if (alternative == null) return null;
+            result.addAll(alternative);
+            if (result.size() > MAX_VARIANTS) return null;
+            if (pos >= pattern.length()) return null;
+            var c = pattern.charAt(pos++);
+            if (c == ')') return result;
+        }
+    }
+
+    private void skipWhitespace() {
+        while (pos < pattern.length() && isPatternWhitespace(pattern.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    /**
+     * Same characters which are ignored by a pattern with the {@link java.util.regex.Pattern#COMMENTS} flag.
+     */
+    static boolean isPatternWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static Set<String> single(String value) {
+        Set<String> result = new LinkedHashSet<>();
+        result.add(value);
+        return result;
+    }
+
+    private static Set<String> product(Set<String> prefixes, Set<String> suffixes) {
+        if ((long) prefixes.size() * suffixes.size() > MAX_VARIANTS) return null;
+        Set<String> result = new LinkedHashSet<>();
+        for (var prefix : prefixes) {
+            for (var suffix : suffixes) {
+                result.add(prefix + suffix);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,144 @@
+package de.chojo.repbot.analyzer.matching;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Compiled matcher for the thankwords of a guild.
+ * <p>
+ * Thankwords which only describe a finite set of literal words are matched by a single {@link LiteralAutomaton}.
+ * Thankwords which are real regular expressions are combined into one {@link Pattern}, which is only evaluated when
+ * the literal words did not match.
+ * <p>
+ * A {@link ShingleFilter} built from the required literals of all thankwords allows to reject most texts without a
+ * thankword before the text is converted or any pattern is evaluated.
+ * <p>
+ * A matcher is immutable and safe to share between threads. It should be created once per change of the thankwords.
+ */
+public final class ThankwordMatcher {
+    private static final String THANKWORD = "((?:^|\\b)%s(?:$|\\b))";
+    private static final String PATTERN = "(?i)(%s)";
+    private static final ThankwordMatcher EMPTY = new ThankwordMatcher(null, null, null);
+
+    @Nullable
+    private final LiteralAutomaton literals;
+    @Nullable
+    private final Pattern pattern;
+    @Nullable
+    private final ShingleFilter prefilter;
+
+    private ThankwordMatcher(@Nullable LiteralAutomaton literals, @Nullable Pattern pattern, @Nullable ShingleFilter prefilter) {
+        this.literals = literals;
+        this.pattern = pattern;
+        this.prefilter = prefilter;
+    }
+
+    /**
+     * Compile the thankwords into a matcher.
+     *
+     * @param thankwords thankwords of the guild
+     * @return new matcher
+     */
+    public static ThankwordMatcher compile(Collection<String> thankwords) {
+        if (thankwords.isEmpty()) return EMPTY;
+        Set<String> literals = new LinkedHashSet<>();
+        List<String> regex = new ArrayList<>();
+        for (var thankword : thankwords) {
+            ThankwordExpander.expand(thankword).ifPresentOrElse(literals::addAll, () -> regex.add(thankword));
+        }
+        return new ThankwordMatcher(literals.isEmpty() ? null : LiteralAutomaton.build(literals), compilePattern(regex),
+                buildPrefilter(literals, regex));
+    }
+
+    @Nullable
+    private static ShingleFilter buildPrefilter(Set<String> literals, List<String> regex) {
+        List<List<String>> alternatives = new ArrayList<>();
+        literals.forEach(literal -> alternatives.add(List.of(literal)));
+        for (var thankword : regex) {
+            var required = RequiredLiterals.extract(thankword);
+            // a thankword without known literals might match every text
+            if (required.isEmpty()) return null;
+            alternatives.addAll(required.get());
+        }
+        return ShingleFilter.build(alternatives);
+    }
+
+    public static ThankwordMatcher empty() {
+        return EMPTY;
+    }
+
+    @Nullable
+    private static Pattern compilePattern(List<String> thankwords) {
+        if (thankwords.isEmpty()) return null;
+        var twPattern = thankwords.stream()
+                .map(t -> String.format(THANKWORD, t))
+                .collect(Collectors.joining("|"));
+        return Pattern.compile(String.format(PATTERN, twPattern),
+                Pattern.CASE_INSENSITIVE + Pattern.MULTILINE + Pattern.DOTALL + Pattern.COMMENTS);
+    }
+
+    /**
+     * Checks if the matcher contains any thankword.
+     *
+     * @return true if no thankword will ever match
+     */
+    public boolean isEmpty() {
+        return literals == null && pattern == null;
+    }
+
+    /**
+     * Checks if the text might contain a thankword.
+     * <p>
+     * This check is cheap and has no false negatives. A text for which this method returns false will never be matched
+     * by {@link #find(CharSequence)}, regardless of its case.
+     *
+     * @param text text to check
+     * @return false if the text does not contain a thankword
+     */
+    public boolean mayMatch(CharSequence text) {
+        if (isEmpty()) return false;
+        return prefilter == null || prefilter.mayMatch(text);
+    }
+
+    /**
+     * Checks if the text contains a thankword.
+     *
+     * @param text text to check
+     * @return true if a thankword was found
+     */
+    public boolean find(CharSequence text) {
+        return find(text, 0, text.length());
+    }
+
+    /**
+     * Checks if a region of the text contains a thankword.
+     * <p>
+     * The bounds of the region are handled like the start and end of the input.
+     *
+     * @param text  text to check
+     * @param start start of the region inclusive
+     * @param end   end of the region exclusive
+     * @return true if a thankword was found
+     */
+    public boolean find(CharSequence text, int start, int end) {
+        if (literals != null && literals.find(text, start, end)) return true;
+        return pattern != null && pattern.matcher(text).region(start, end).find();
+    }
+
+    @Nullable
+    LiteralAutomaton literals() {
+        return literals;
+    }
+
+    @Nullable
+    Pattern pattern() {
+        return pattern;
+    }
+}
@@ -0,0 +1,188 @@
+package de.chojo.repbot.analyzer.matching;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+
+/**
+ * Single pass scanner which splits a text into words and marks the words containing a thankword.
+ * <p>
+ * Words are separated by the same whitespace characters as {@code \s} in a regular expression. Word bounds, thankword
+ * positions and target candidates are stored in primitive buffers which are reused for every scan.
+ * <p>
+ * A scanner holds state of the last scan and is not thread safe. Use one scanner per thread.
+ */
+public final class WordScanner {
+    private static final int INITIAL_WORDS = 64;
+    private static final int INITIAL_HITS = 8;
+
+    // start and end offset of each word. Word n is at index 2n and 2n + 1
+    private int[] bounds = new int[INITIAL_WORDS * 2];
+    private int[] thankwords = new int[INITIAL_HITS];
+    private int[] candidates = new int[INITIAL_WORDS];
+    private int words;
+    private int thankwordCount;
+    private int candidateCount;
+    private CharSequence text = "";
+    private Matcher regex;
+
+    /**
+     * Scan a text for words and thankwords.
+     *
+     * @param text    text to scan
+     * @param matcher matcher to detect thankwords in a single word
+     * @return self for chaining
+     */
+    public WordScanner scan(CharSequence text, ThankwordMatcher matcher) {
+        this.text = text;
+        words = 0;
+        thankwordCount = 0;
+        candidateCount = 0;
+        prepareRegex(matcher);
+
+        var length = text.length();
+        var start = -1;
+        for (var i = 0; i <= length; i++) {
+            var separator = i == length || isSeparator(text.charAt(i));
+            if (separator) {
+                if (start != -1) {
+                    addWord(matcher, start, i);
+                    start = -1;
+                }
+            } else if (start == -1) {
+                start = i;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Collect the indices of all words which are in the range of a thankword.
+     * <p>
+     * A word is a candidate when it is not more than {@code lookaround} words away from a thankword and is not the
+     * thankword itself. Every word is contained only once.
+     *
+     * @param lookaround max distance of a candidate to a thankword
+     * @return amount of candidates
+     */
+    public int candidates(int lookaround) {
+        candidateCount = 0;
+        if (thankwordCount == 0) return 0;
+        var hit = 0;
+        for (var word = 0; word < words; word++) {
+            // skip thankwords which are too far behind the current word
+            while (hit < thankwordCount && thankwords[hit] < word - lookaround) hit++;
+            for (var next = hit; next < thankwordCount && thankwords[next] <= word + lookaround; next++) {
+                if (thankwords[next] != word) {
+                    candidates = ensure(candidates, candidateCount + 1);
+                    candidates[candidateCount++] = word;
+                    break;
+                }
+            }
+        }
+        return candidateCount;
+    }
+
+    /**
+     * Amount of words of the last scan.
+     *
+     * @return word count
+     */
+    public int words() {
+        return words;
+    }
+
+    /**
+     * Amount of words containing a thankword in the last scan.
+     *
+     * @return thankword count
+     */
+    public int thankwords() {
+        return thankwordCount;
+    }
+
+    /**
+     * Get the word index of a thankword.
+     *
+     * @param index index of the thankword
+     * @return index of the word
+     */
+    public int thankword(int index) {
+        return thankwords[index];
+    }
+
+    /**
+     * Get the word index of a candidate collected by {@link #candidates(int)}.
+     *
+     * @param index index of the candidate
+     * @return index of the word
+     */
+    public int candidate(int index) {
+        return candidates[index];
+    }
+
+    public int wordStart(int word) {
+        return bounds[word * 2];
+    }
+
+    public int wordEnd(int word) {
+        return bounds[word * 2 + 1];
+    }
+
+    /**
+     * Get the word as a string.
+     *
+     * @param word index of the word
+     * @return word
+     */
+    public String word(int word) {
+        return text.subSequence(wordStart(word), wordEnd(word)).toString();
+    }
+
+    private void addWord(ThankwordMatcher matcher, int start, int end) {
+        if (isBlank(start, end)) return;
+        bounds = ensure(bounds, words * 2 + 2);
+        bounds[words * 2] = start;
+        bounds[words * 2 + 1] = end;
+        if (isThankword(matcher, start, end)) {
+            thankwords = ensure(thankwords, thankwordCount + 1);
+            thankwords[thankwordCount++] = words;
+        }
+        words++;
+    }
+
+    private boolean isThankword(ThankwordMatcher matcher, int start, int end) {
+        var literals = matcher.literals();
+        if (literals != null && literals.find(text, start, end)) return true;
+        return regex != null && regex.region(start, end).find();
+    }
+
+    private void prepareRegex(ThankwordMatcher matcher) {
+        var pattern = matcher.pattern();
+        if (pattern == null) {
+            regex = null;
+        } else if (regex != null && regex.pattern() == pattern) {
+            regex.reset(text);
+        } else {
+            regex = pattern.matcher(text);
+        }
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (var i = start; i < end; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static int[] ensure(int[] buffer, int size) {
+        if (buffer.length >= size) return buffer;
+        return Arrays.copyOf(buffer, Math.max(size, buffer.length * 2));
+    }
+
+    /**
+     * Same characters as {@code \s} in a regular expression.
+     */
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
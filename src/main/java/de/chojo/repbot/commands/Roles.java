@@ -24,6 +24,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 import static de.chojo.repbot.util.Guilds.prettyName;
@@ -111,7 +112,19 @@ public class Roles extends SimpleCommand {
         var start = Instant.now();
         roleAssigner
                 .updateBatch(event.getGuild())
-                .onSuccess(res -> {
+                .whenComplete((res, err) -> {
+                    running.remove(event.getGuild().getIdLong());
+                    if (err != null) {
+                        var cause = err instanceof CompletionException ? err.getCause() : err;
+                        log.warn("Update of role failed on guild {}", prettyName(event.getGuild()), cause);
+                        if (cause instanceof RoleAccessException roleException) {
+                            event.getHook()
+                                    .editOriginal(context.localize("error.roleAccess",
+                                            Replacement.createMention("ROLE", roleException.role())))
+                                    .queue();
+                        }
+                        return;
+                    }
                     var duration = DurationFormatUtils.formatDuration(start.until(Instant.now(), ChronoUnit.MILLIS), "mm:ss");
                     log.info("Update of roles on {} took {}.", prettyName(event.getGuild()), duration);
                     if (event.getHook().isExpired()) {
@@ -124,16 +137,6 @@ public class Roles extends SimpleCommand {
                     event.getHook()
                             .editOriginal(context.localize("command.roles.sub.refresh.finished"))
                             .queue();
-                    running.remove(event.getGuild().getIdLong());
-                }).onError(err -> {
-                    log.warn("Update of role failed on guild {}", prettyName(event.getGuild()), err);
-                    if (err instanceof RoleAccessException roleException) {
-                        event.getHook()
-                                .editOriginal(context.localize("error.roleAccess",
-                                        Replacement.createMention("ROLE", roleException.role())))
-                                .queue();
-                    }
-                    running.remove(event.getGuild().getIdLong());
                 });
     }
 
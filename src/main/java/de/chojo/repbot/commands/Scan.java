@@ -9,6 +9,7 @@ import de.chojo.jdautil.localization.util.Replacement;
 import de.chojo.jdautil.parsing.Verifier;
 import de.chojo.jdautil.wrapper.SlashCommandContext;
 import de.chojo.repbot.analyzer.MessageAnalyzer;
+import de.chojo.repbot.analyzer.matching.ThankwordMatcher;
 import de.chojo.repbot.config.Configuration;
 import de.chojo.repbot.dao.provider.Guilds;
 import de.chojo.repbot.util.LogNotify;
@@ -27,13 +28,15 @@ import org.slf4j.Logger;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Pattern;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -150,15 +153,15 @@ public class Scan extends SimpleCommand {
 
     private void preSchedule(SlashCommandContext context, TextChannel channel, int messageCount) {
         var history = channel.getHistory();
-        var pattern = guilds.guild(channel.getGuild()).settings().thanking().thankwords().thankwordPattern();
+        var matcher = guilds.guild(channel.getGuild()).settings().thanking().thankwords().matcher();
 
-        schedule(history, context, pattern, channel, messageCount);
+        schedule(history, context, matcher, channel, messageCount);
     }
 
-    private void schedule(MessageHistory history, SlashCommandContext context, Pattern pattern, TextChannel reportChannel, int calls) {
+    private void schedule(MessageHistory history, SlashCommandContext context, ThankwordMatcher matcher, TextChannel reportChannel, int calls) {
         var progressMessage = reportChannel.sendMessage(context.localize("command.scan.progress",
                 Replacement.create("PERCENT", String.format("%.02f", 0.0d))) + " " + TextGenerator.progressBar(0, 40)).complete();
-        var scanProcess = new ScanProcess(messageAnalyzer, context.localizer(), progressMessage, history, pattern, calls, guilds);
+        var scanProcess = new ScanProcess(messageAnalyzer, context.localizer(), progressMessage, history, matcher, calls, guilds);
         setActive(scanProcess);
         reportChannel.getGuild().loadMembers().get();
         worker.schedule(() -> processScan(scanProcess), 0, TimeUnit.SECONDS);
@@ -256,7 +259,7 @@ public class Scan extends SimpleCommand {
         private final TextChannel resultChannel;
         private final Message progressMessage;
         private final MessageHistory history;
-        private final Pattern pattern;
+        private final ThankwordMatcher matcher;
         private final int calls;
         private final Guilds guilds;
         // This is the offset of two bot messages of the reputation bot.
@@ -267,14 +270,14 @@ public class Scan extends SimpleCommand {
         private Instant lastSeen;
         private Thread currWorker;
 
-        private ScanProcess(MessageAnalyzer messageAnalyzer, ContextLocalizer localizer, Message progressMessage, MessageHistory history, Pattern pattern, int calls, Guilds data) {
+        private ScanProcess(MessageAnalyzer messageAnalyzer, ContextLocalizer localizer, Message progressMessage, MessageHistory history, ThankwordMatcher matcher, int calls, Guilds data) {
             this.messageAnalyzer = messageAnalyzer;
             loc = localizer;
             guild = progressMessage.getGuild();
             resultChannel = progressMessage.getTextChannel();
             this.progressMessage = progressMessage;
             this.history = history;
-            this.pattern = pattern;
+            this.matcher = matcher;
             // The history will already contain two messages of the bot at this point.
             this.calls = Math.min(Math.max(0, calls + 2), 10000);
             callsLeft = this.calls;
@@ -310,12 +313,13 @@ public class Scan extends SimpleCommand {
                 return false;
             }
 
+            List<CompletableFuture<Boolean>> logged = new ArrayList<>();
             for (var message : messages) {
                 countScan();
 
                 if (message.getAuthor().isBot()) continue;
 
-                var result = messageAnalyzer.processMessage(pattern, message, null, false, guilds.guild(guild).settings().abuseProtection().maxMessageReputation());
+                var result = messageAnalyzer.processMessage(matcher, message, null, false, guilds.guild(guild).settings().abuseProtection().maxMessageReputation());
 
                 var donator = result.donator();
                 var refMessage = result.referenceMessage();
@@ -324,16 +328,19 @@ public class Scan extends SimpleCommand {
                     switch (result.type()) {
                         case FUZZY, MENTION, ANSWER -> {
                             if (Verifier.equalSnowflake(donator, resultReceiver.getReference())) continue;
-                            if (reputation.user(resultReceiver.getReference().getUser())
-                                    .addOldReputation(donator != null && guild.isMember(donator) ? donator : null, message, refMessage, result.type())) {
-                                hit();
-                            }
+                            logged.add(reputation.user(resultReceiver.getReference().getUser())
+                                    .addOldReputation(donator != null && guild.isMember(donator) ? donator : null, message, refMessage, result.type()));
                         }
                         case NO_MATCH -> {
                         }
                     }
                 }
             }
+            // reputations are written in batches. We wait for them to count the hits.
+            for (var future : logged) {
+                // failed writes are logged by the writer and are not counted
+                if (future.handle((success, err) -> err == null && success).join()) hit();
+            }
             var progress = (calls - Math.max(callsLeft, 0)) / (double) calls;
             var progressString = String.format("%.02f", progress * 100.0d);
             log.debug("Scan progress for guild {}: {}", guild.getIdLong(), progressString);
@@ -18,4 +18,15 @@ public class Cleanup extends QueryFactoryHolder {
                 .readRow(stmt -> stmt.getLong("guild_id"))
                 .allSync();
     }
+
+    /**
+     * Removes the daily reputation buckets which are no longer part of any rolling reputation mode.
+     */
+    public void cleanupReputationBuckets() {
+        builder()
+                .queryWithoutParams("""
+                        DELETE FROM reputation_daily WHERE day <= CURRENT_DATE - 31
+                        """)
+                .update().execute();
+    }
 }
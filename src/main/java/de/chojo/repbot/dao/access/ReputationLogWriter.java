@@ -0,0 +1,220 @@
+package de.chojo.repbot.dao.access;
+
+import de.chojo.repbot.analyzer.ThankType;
+import de.chojo.repbot.util.LogNotify;
+import de.chojo.sqlutil.base.QueryFactoryHolder;
+import de.chojo.sqlutil.exceptions.ExceptionTransformer;
+import de.chojo.sqlutil.wrapper.QueryBuilderConfig;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Write behind queue for the reputation log.
+ * <p>
+ * Entries are inserted with a single multi row insert of up to {@link #BATCH_SIZE} entries. An entry is written right
+ * away when the writer is idle. Entries which are submitted while a batch is written are collected and written with the
+ * next batch. The queue is also flushed every {@link #FLUSH_INTERVAL} milliseconds. Each entry completes with true if
+ * it was inserted and with false if the entry already existed. If the batch could not be written, all entries of the
+ * batch complete exceptionally.
+ * <p>
+ * The queue is drained on {@link #shutdown()}. Entries submitted after the shutdown are written directly.
+ */
+public class ReputationLogWriter extends QueryFactoryHolder {
+    private static final Logger log = getLogger(ReputationLogWriter.class);
+    private static final int BATCH_SIZE = 100;
+    private static final long FLUSH_INTERVAL = 250;
+    private static final String ROW = "(?,?,?,?,?,?,?,?)";
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final ScheduledExecutorService executor;
+    // error of the batch which is currently written
+    private final AtomicReference<Exception> failure;
+    // batches are written one after another
+    private final AtomicLong startedBatch = new AtomicLong();
+    private final AtomicLong writtenBatch = new AtomicLong();
+    private volatile boolean shutdown;
+
+    private ReputationLogWriter(DataSource dataSource, ScheduledExecutorService executor) {
+        this(dataSource, executor, new AtomicReference<>());
+    }
+
+    private ReputationLogWriter(DataSource dataSource, ScheduledExecutorService executor, AtomicReference<Exception> failure) {
+        super(dataSource, QueryBuilderConfig.builder().withExceptionHandler(e -> {
+                    log.error(LogNotify.NOTIFY_ADMIN, ExceptionTransformer.prettyException("Could not write reputation log batch", e), e);
+                    failure.set(e);
+                })
+                .build());
+        this.executor = executor;
+        this.failure = failure;
+    }
+
+    public static ReputationLogWriter create(DataSource dataSource, ScheduledExecutorService executor) {
+        var writer = new ReputationLogWriter(dataSource, executor);
+        executor.scheduleAtFixedRate(writer::flush, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+        return writer;
+    }
+
+    /**
+     * Queue an entry for the reputation log.
+     *
+     * @param entry entry to write
+     * @return future which completes with true if the entry was inserted
+     */
+    public CompletableFuture<Boolean> submit(Entry entry) {
+        var pending = new Pending(entry, new CompletableFuture<>());
+        queue.add(pending);
+        if (shutdown) {
+            flush();
+        } else {
+            drain();
+        }
+        return pending.result();
+    }
+
+    private void drain() {
+        // a running drain writes the entry with its next batch
+        if (!draining.compareAndSet(false, true)) return;
+        try {
+            executor.execute(() -> {
+                try {
+                    flush();
+                } finally {
+                    draining.set(false);
+                }
+                // an entry might have been queued after the queue was flushed
+                if (!queue.isEmpty()) drain();
+            });
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+            flush();
+        }
+    }
+
+    /**
+     * Id of the last batch whose write was started. Batches are written one after another with increasing ids.
+     *
+     * @return batch id or 0 if no batch was started yet
+     */
+    public long startedBatch() {
+        return startedBatch.get();
+    }
+
+    /**
+     * Id of the last batch which was written. The id is set after the batch was committed and before the entries of the
+     * batch are completed.
+     *
+     * @return batch id or 0 if no batch was written yet
+     */
+    public long writtenBatch() {
+        return writtenBatch.get();
+    }
+
+    /**
+     * Writes all queued entries. Entries which are submitted afterwards are written directly.
+     */
+    public void shutdown() {
+        shutdown = true;
+        flush();
+    }
+
+    private synchronized void flush() {
+        while (!queue.isEmpty()) {
+            List<Pending> batch = new ArrayList<>(BATCH_SIZE);
+            Pending pending;
+            while (batch.size() < BATCH_SIZE && (pending = queue.poll()) != null) {
+                batch.add(pending);
+            }
+            write(batch);
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        List<Key> rows;
+        var id = startedBatch.incrementAndGet();
+        failure.set(null);
+        try {
+            rows = builder(Key.class)
+                    .query("""
+                            INSERT INTO
+                            reputation_log(guild_id, donor_id, receiver_id, message_id, ref_message_id, channel_id, cause, received) VALUES %s
+                                ON CONFLICT(guild_id, donor_id, receiver_id, message_id)
+                                    DO NOTHING
+                            RETURNING guild_id, donor_id, receiver_id, message_id;
+                            """, String.join(",", Collections.nCopies(batch.size(), ROW)))
+                    .paramsBuilder(stmt -> {
+                        for (var pending : batch) {
+                            var entry = pending.entry();
+                            stmt.setLong(entry.guildId()).setLong(entry.donorId()).setLong(entry.receiverId())
+                                    .setLong(entry.messageId()).setLong(entry.refMessageId())
+                                    .setLong(entry.channelId()).setString(entry.type().name())
+                                    .setTimestamp(Timestamp.from(entry.received()));
+                        }
+                    })
+                    .readRow(rs -> new Key(rs.getLong("guild_id"), rs.getLong("donor_id"), rs.getLong("receiver_id"), rs.getLong("message_id")))
+                    .allSync();
+        } catch (RuntimeException e) {
+            log.error(LogNotify.NOTIFY_ADMIN, "Could not write reputation log batch", e);
+            failure.set(e);
+            rows = List.of();
+        }
+        writtenBatch.set(id);
+        // the exception handler of the query reports failed queries
+        var error = failure.getAndSet(null);
+        if (error != null) {
+            for (var pending : batch) {
+                pending.result().completeExceptionally(error);
+            }
+            return;
+        }
+        var inserted = new HashSet<>(rows);
+        log.trace("Wrote {} of {} reputation log entries", inserted.size(), batch.size());
+        for (var pending : batch) {
+            // the same entry might be queued twice. Only the first one was inserted.
+            pending.result().complete(inserted.remove(pending.entry().key()));
+        }
+    }
+
+    /**
+     * A reputation log entry.
+     *
+     * @param guildId      guild id
+     * @param donorId      donor id or 0 if there is no donor
+     * @param receiverId   receiver id
+     * @param messageId    id of the message
+     * @param refMessageId id of the reference message if present
+     * @param channelId    id of the channel of the message
+     * @param type         type of reputation
+     * @param received     time when the reputation was received
+     */
+    public record Entry(long guildId, long donorId, long receiverId, long messageId, @Nullable Long refMessageId,
+                        long channelId, ThankType type, Instant received) {
+        private Key key() {
+            return new Key(guildId, donorId, receiverId, messageId);
+        }
+    }
+
+    private record Key(long guildId, long donorId, long receiverId, long messageId) {
+    }
+
+    private record Pending(Entry entry, CompletableFuture<Boolean> result) {
+    }
+}
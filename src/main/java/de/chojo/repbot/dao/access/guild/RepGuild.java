@@ -2,6 +2,7 @@ package de.chojo.repbot.dao.access.guild;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import de.chojo.repbot.dao.access.ReputationLogWriter;
 import de.chojo.repbot.dao.access.guild.reputation.Reputation;
 import de.chojo.repbot.dao.access.guild.settings.Settings;
 import de.chojo.repbot.dao.components.GuildHolder;
@@ -18,10 +19,12 @@ public class RepGuild extends QueryFactoryHolder implements GuildHolder {
     private static final Cache<Long, Gdpr> GDPR = CacheBuilder.newBuilder().expireAfterAccess(2, TimeUnit.MINUTES).build();
     private final Reputation reputation;
     private final Settings settings;
+    private final ReputationLogWriter logWriter;
     private Guild guild;
 
-    public RepGuild(DataSource dataSource, Guild guild) {
+    public RepGuild(DataSource dataSource, Guild guild, ReputationLogWriter logWriter) {
         super(dataSource);
+        this.logWriter = logWriter;
         reputation = new Reputation(this);
         settings = new Settings(this);
         this.guild = guild;
@@ -31,6 +34,10 @@ public class RepGuild extends QueryFactoryHolder implements GuildHolder {
         return guild;
     }
 
+    public ReputationLogWriter logWriter() {
+        return logWriter;
+    }
+
     public Gdpr gdpr() {
         try {
             return GDPR.get(guildId(), () -> new Gdpr(this));
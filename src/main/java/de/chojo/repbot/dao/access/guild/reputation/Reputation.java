@@ -3,9 +3,12 @@ package de.chojo.repbot.dao.access.guild.reputation;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import de.chojo.repbot.dao.access.guild.RepGuild;
+import de.chojo.repbot.dao.access.guild.reputation.sub.Cooldowns;
+import de.chojo.repbot.dao.access.guild.reputation.sub.Limits;
 import de.chojo.repbot.dao.access.guild.reputation.sub.Log;
 import de.chojo.repbot.dao.access.guild.reputation.sub.Ranking;
 import de.chojo.repbot.dao.access.guild.reputation.sub.RepUser;
+import de.chojo.repbot.dao.access.guild.settings.sub.ReputationMode;
 import de.chojo.repbot.dao.components.GuildHolder;
 import de.chojo.repbot.dao.snapshots.GuildReputationStats;
 import de.chojo.sqlutil.base.QueryFactoryHolder;
@@ -15,6 +18,8 @@ import net.dv8tion.jda.api.entities.User;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
@@ -27,12 +32,16 @@ public class Reputation extends QueryFactoryHolder implements GuildHolder {
     private final Ranking ranking;
     private final Cache<Long, RepUser> users = CacheBuilder.newBuilder().expireAfterAccess(5, TimeUnit.MINUTES).build();
     private final Log logAccess;
+    private final Cooldowns cooldowns;
+    private final Limits limits;
 
     public Reputation(RepGuild repGuild) {
         super(repGuild);
         this.repGuild = repGuild;
         ranking = new Ranking(this);
         logAccess = new Log(this);
+        cooldowns = new Cooldowns(this);
+        limits = new Limits(this);
     }
 
     public Log log() {
@@ -75,6 +84,64 @@ public class Reputation extends QueryFactoryHolder implements GuildHolder {
         }
     }
 
+    /**
+     * Get the current reputation of all users of the guild with one query.
+     * <p>
+     * The reputation is the same as {@link RepUser#currentReputation()} of each user.
+     *
+     * @return map of user ids to the reputation. Users without a reputation might be missing.
+     */
+    public Map<Long, Long> currentReputations() {
+        var mode = repGuild.settings().general().reputationMode();
+        Map<Long, Long> result = new HashMap<>();
+        if (mode != ReputationMode.TOTAL) {
+            builder(Boolean.class)
+                    .query("""
+                            SELECT user_id, SUM(received) AS reputation
+                            FROM reputation_daily d
+                            WHERE guild_id = ? AND day >= CURRENT_DATE - ?
+                              AND NOT EXISTS(SELECT 1
+                                             FROM cleanup_schedule clean
+                                             WHERE clean.guild_id = d.guild_id
+                                               AND clean.user_id = d.user_id)
+                            GROUP BY user_id;
+                            """)
+                    .paramsBuilder(stmt -> stmt.setLong(guildId()).setInt(mode.days()))
+                    .readRow(rs -> {
+                        result.put(rs.getLong("user_id"), rs.getLong("reputation"));
+                        return true;
+                    })
+                    .allSync();
+        } else {
+            builder(Boolean.class)
+                    .query("""
+                            SELECT user_id, received + rep_offset AS reputation
+                            FROM user_reputation_totals t
+                            WHERE guild_id = ?
+                              AND (received != 0 OR donated != 0)
+                              AND NOT EXISTS(SELECT 1
+                                             FROM cleanup_schedule clean
+                                             WHERE clean.guild_id = t.guild_id
+                                               AND clean.user_id = t.user_id);
+                            """)
+                    .paramsBuilder(stmt -> stmt.setLong(guildId()))
+                    .readRow(rs -> {
+                        result.put(rs.getLong("user_id"), rs.getLong("reputation"));
+                        return true;
+                    })
+                    .allSync();
+        }
+        return result;
+    }
+
+    public Cooldowns cooldowns() {
+        return cooldowns;
+    }
+
+    public Limits limits() {
+        return limits;
+    }
+
     public Ranking ranking() {
         return ranking;
     }
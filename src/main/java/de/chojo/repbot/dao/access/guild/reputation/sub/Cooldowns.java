@@ -0,0 +1,197 @@
+package de.chojo.repbot.dao.access.guild.reputation.sub;
+
+import de.chojo.repbot.dao.access.guild.reputation.Reputation;
+import de.chojo.repbot.dao.components.GuildHolder;
+import de.chojo.sqlutil.base.QueryFactoryHolder;
+import net.dv8tion.jda.api.entities.Guild;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In memory index of the last reputation between two users of a guild.
+ * <p>
+ * The index is loaded from the reputation log on first use and contains every pair of users which interacted within
+ * the cooldown of the guild. A pair which is not part of the index is not on cooldown. Entries are removed once they
+ * are older than the cooldown.
+ * <p>
+ * Pairs are unordered. The last reputation from user A to user B is also the last reputation from user B to user A.
+ */
+public class Cooldowns extends QueryFactoryHolder implements GuildHolder {
+    private static final int NOT_LOADED = -1;
+    private final Reputation reputation;
+    // Two snowflakes do not fit into one long. The key is a hash of the pair and colliding pairs are chained.
+    private final Map<Long, Entry> entries = new HashMap<>();
+    // cooldown in minutes which was used to load the index
+    private int loadedCooldown = NOT_LOADED;
+    private long lastSweep;
+
+    public Cooldowns(Reputation reputation) {
+        super(reputation);
+        this.reputation = reputation;
+    }
+
+    /**
+     * Get the last time where one of the users gave reputation to the other user.
+     *
+     * @param userA id of the first user
+     * @param userB id of the second user
+     * @return the last timestamp or empty if the pair is not on cooldown.
+     */
+    public synchronized Optional<Instant> last(long userA, long userB) {
+        var cooldown = cooldown();
+        load(cooldown);
+        sweep(cooldown);
+        var entry = entry(Math.min(userA, userB), Math.max(userA, userB));
+        if (entry == null || isExpired(entry.received, cooldown)) return Optional.empty();
+        return Optional.of(Instant.ofEpochMilli(entry.received));
+    }
+
+    /**
+     * Record a reputation between two users.
+     *
+     * @param userA    id of the first user
+     * @param userB    id of the second user
+     * @param received time when the reputation was given
+     */
+    public synchronized void record(long userA, long userB, Instant received) {
+        put(Math.min(userA, userB), Math.max(userA, userB), received.toEpochMilli());
+    }
+
+    /**
+     * Reverts a reputation which was recorded but not logged.
+     * <p>
+     * The pair is removed if the reputation is still its last one. A pair which interacted after the reputation is
+     * kept.
+     *
+     * @param userA    id of the first user
+     * @param userB    id of the second user
+     * @param received time when the reputation was given
+     */
+    public synchronized void revert(long userA, long userB, Instant received) {
+        var low = Math.min(userA, userB);
+        var high = Math.max(userA, userB);
+        var key = key(low, high);
+        Entry previous = null;
+        for (var entry = entries.get(key); entry != null; previous = entry, entry = entry.next) {
+            if (entry.low != low || entry.high != high) continue;
+            if (entry.received != received.toEpochMilli()) return;
+            if (previous != null) {
+                previous.next = entry.next;
+            } else if (entry.next != null) {
+                entries.put(key, entry.next);
+            } else {
+                entries.remove(key);
+            }
+            return;
+        }
+    }
+
+    /**
+     * Invalidates the index. It will be loaded again on the next lookup.
+     */
+    public synchronized void invalidate() {
+        entries.clear();
+        loadedCooldown = NOT_LOADED;
+    }
+
+    @Override
+    public Guild guild() {
+        return reputation.guild();
+    }
+
+    private int cooldown() {
+        return reputation.repGuild().settings().abuseProtection().cooldown();
+    }
+
+    /**
+     * Loads all pairs of the cooldown window. The index is loaded again when the cooldown was increased since the last
+     * load, because it would miss the older pairs otherwise.
+     */
+    private void load(int cooldown) {
+        if (cooldown <= loadedCooldown) return;
+        builder(Entry.class)
+                .query("""
+                        SELECT
+                            LEAST(donor_id, receiver_id) AS low,
+                            GREATEST(donor_id, receiver_id) AS high,
+                            MAX(received) AS received
+                        FROM
+                            reputation_log
+                        WHERE guild_id = ?
+                            AND donor_id IS NOT NULL
+                            AND received > NOW() - ?::INTERVAL
+                        GROUP BY low, high;
+                        """)
+                .paramsBuilder(stmt -> stmt.setLong(guildId()).setString("%s minutes".formatted(cooldown)))
+                .readRow(rs -> new Entry(rs.getLong("low"), rs.getLong("high"), rs.getTimestamp("received").getTime()))
+                .allSync()
+                .forEach(entry -> put(entry.low, entry.high, entry.received));
+        loadedCooldown = cooldown;
+        lastSweep = System.currentTimeMillis();
+    }
+
+    /**
+     * Removes expired entries. This is done at most once per cooldown period.
+     */
+    private void sweep(int cooldown) {
+        var now = System.currentTimeMillis();
+        if (now - lastSweep < TimeUnit.MINUTES.toMillis(cooldown)) return;
+        lastSweep = now;
+        var iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            var bucket = iterator.next();
+            var head = bucket.getValue();
+            while (head != null && isExpired(head.received, cooldown)) head = head.next;
+            for (var entry = head; entry != null; entry = entry.next) {
+                while (entry.next != null && isExpired(entry.next.received, cooldown)) entry.next = entry.next.next;
+            }
+            if (head == null) {
+                iterator.remove();
+            } else {
+                bucket.setValue(head);
+            }
+        }
+    }
+
+    private Entry entry(long low, long high) {
+        for (var entry = entries.get(key(low, high)); entry != null; entry = entry.next) {
+            if (entry.low == low && entry.high == high) return entry;
+        }
+        return null;
+    }
+
+    private void put(long low, long high, long received) {
+        var entry = entry(low, high);
+        if (entry != null) {
+            entry.received = Math.max(entry.received, received);
+            return;
+        }
+        entry = new Entry(low, high, received);
+        entry.next = entries.put(key(low, high), entry);
+    }
+
+    private static boolean isExpired(long received, int cooldown) {
+        return System.currentTimeMillis() - received >= TimeUnit.MINUTES.toMillis(cooldown);
+    }
+
+    private static long key(long low, long high) {
+        return low * 0x9E3779B97F4A7C15L ^ Long.rotateLeft(high, 31);
+    }
+
+    private static class Entry {
+        private final long low;
+        private final long high;
+        private long received;
+        private Entry next;
+
+        private Entry(long low, long high, long received) {
+            this.low = low;
+            this.high = high;
+            this.received = received;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package de.chojo.repbot.dao.access.guild.reputation.sub;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window counter with a resolution of one hour.
+ * <p>
+ * The window contains the current hour and the previous {@code hours - 1} hours. Buckets which leave the window are
+ * subtracted from the total when the window is moved, so counting is constant on average.
+ * <p>
+ * A counter is not thread safe.
+ */
+public class HourlyCounter {
+    private final int[] buckets;
+    private long head;
+    private int total;
+
+    /**
+     * Creates a new counter.
+     *
+     * @param hours size of the window in hours
+     */
+    public HourlyCounter(int hours) {
+        buckets = new int[Math.max(hours, 1)];
+    }
+
+    /**
+     * Add an amount to the bucket of an hour. Hours which are already outside the window are ignored.
+     *
+     * @param hour   hours since epoch
+     * @param amount amount to add
+     */
+    public void add(long hour, int amount) {
+        if (hour > head) advance(hour);
+        if (hour <= head - buckets.length) return;
+        buckets[index(hour)] += amount;
+        total += amount;
+    }
+
+    /**
+     * Count the entries in the window which ends with the hour.
+     *
+     * @param hour hours since epoch
+     * @return amount of entries in the window
+     */
+    public int count(long hour) {
+        advance(hour);
+        return total;
+    }
+
+    public int hours() {
+        return buckets.length;
+    }
+
+    private void advance(long hour) {
+        if (hour <= head) return;
+        if (hour - head >= buckets.length) {
+            Arrays.fill(buckets, 0);
+            total = 0;
+        } else {
+            for (var next = head + 1; next <= hour; next++) {
+                total -= buckets[index(next)];
+                buckets[index(next)] = 0;
+            }
+        }
+        head = hour;
+    }
+
+    private int index(long hour) {
+        return Math.floorMod(hour, buckets.length);
+    }
+}
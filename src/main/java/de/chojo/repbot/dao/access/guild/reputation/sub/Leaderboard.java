@@ -0,0 +1,196 @@
+package de.chojo.repbot.dao.access.guild.reputation.sub;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Order statistic tree of the reputation of users.
+ * <p>
+ * Users are ordered by their reputation descending and their id ascending. Changes, rank lookups and page fetches
+ * take logarithmic time. Users without reputation are not part of the leaderboard.
+ * <p>
+ * The tree is a treap where every node knows the size of its subtree. A leaderboard is thread safe.
+ */
+public class Leaderboard {
+    private final Map<Long, Long> reputation = new HashMap<>();
+    private Node root;
+
+    /**
+     * Set the reputation of a user.
+     *
+     * @param userId     id of the user
+     * @param reputation new reputation of the user
+     */
+    public synchronized void set(long userId, long reputation) {
+        var old = this.reputation.remove(userId);
+        if (old != null) root = remove(root, old, userId);
+        if (reputation == 0) return;
+        this.reputation.put(userId, reputation);
+        var node = new Node(reputation, userId);
+        var split = split(root, reputation, userId);
+        root = merge(merge(split[0], node), split[1]);
+    }
+
+    /**
+     * Add an amount to the reputation of a user.
+     *
+     * @param userId id of the user
+     * @param amount amount to add. Can be negative to subtract.
+     */
+    public synchronized void add(long userId, long amount) {
+        set(userId, reputation(userId) + amount);
+    }
+
+    /**
+     * Get the reputation of a user.
+     *
+     * @param userId id of the user
+     * @return reputation or 0 if the user is not on the leaderboard
+     */
+    public synchronized long reputation(long userId) {
+        return reputation.getOrDefault(userId, 0L);
+    }
+
+    /**
+     * Get the rank of a user.
+     *
+     * @param userId id of the user
+     * @return one based rank or 0 if the user is not on the leaderboard
+     */
+    public synchronized int rank(long userId) {
+        var value = reputation.get(userId);
+        if (value == null) return 0;
+        var rank = 0;
+        var node = root;
+        while (node != null) {
+            var cmp = compare(value, userId, node);
+            if (cmp == 0) return rank + size(node.left) + 1;
+            if (cmp < 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Get a range of the leaderboard.
+     *
+     * @param offset amount of entries to skip
+     * @param limit  max amount of entries
+     * @return entries ordered by rank
+     */
+    public synchronized List<Entry> page(int offset, int limit) {
+        var to = (int) Math.min((long) offset + limit, size());
+        List<Entry> entries = new ArrayList<>(Math.max(0, to - offset));
+        collect(root, offset, to, 0, entries);
+        return entries;
+    }
+
+    /**
+     * Amount of users on the leaderboard.
+     *
+     * @return size
+     */
+    public synchronized int size() {
+        return size(root);
+    }
+
+    private static void collect(Node node, int from, int to, int start, List<Entry> entries) {
+        if (node == null) return;
+        var index = start + size(node.left);
+        if (from < index) collect(node.left, from, to, start, entries);
+        if (from <= index && index < to) entries.add(new Entry(index + 1, node.userId, node.reputation));
+        if (index + 1 < to) collect(node.right, from, to, index + 1, entries);
+    }
+
+    /**
+     * Splits the tree into nodes ranked before the key and the remaining nodes.
+     */
+    private static Node[] split(Node node, long reputation, long userId) {
+        if (node == null) return new Node[2];
+        if (compare(reputation, userId, node) > 0) {
+            var split = split(node.right, reputation, userId);
+            node.right = split[0];
+            node.update();
+            split[0] = node;
+            return split;
+        }
+        var split = split(node.left, reputation, userId);
+        node.left = split[1];
+        node.update();
+        split[1] = node;
+        return split;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+
+    private static Node remove(Node node, long reputation, long userId) {
+        if (node == null) return null;
+        var cmp = compare(reputation, userId, node);
+        if (cmp == 0) return merge(node.left, node.right);
+        if (cmp < 0) {
+            node.left = remove(node.left, reputation, userId);
+        } else {
+            node.right = remove(node.right, reputation, userId);
+        }
+        node.update();
+        return node;
+    }
+
+    /**
+     * Compares a key with a node. A negative value means that the key is ranked before the node.
+     */
+    private static int compare(long reputation, long userId, Node node) {
+        var cmp = Long.compare(node.reputation, reputation);
+        return cmp != 0 ? cmp : Long.compare(userId, node.userId);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * An entry of the leaderboard.
+     *
+     * @param rank       one based rank
+     * @param userId     id of the user
+     * @param reputation reputation of the user
+     */
+    public record Entry(int rank, long userId, long reputation) {
+    }
+
+    private static class Node {
+        private final long reputation;
+        private final long userId;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private Node left;
+        private Node right;
+        private int size = 1;
+
+        private Node(long reputation, long userId) {
+            this.reputation = reputation;
+            this.userId = userId;
+        }
+
+        private void update() {
+            size = 1 + size(left) + size(right);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package de.chojo.repbot.dao.access.guild.reputation.sub;
+
+import de.chojo.repbot.dao.access.guild.reputation.Reputation;
+import de.chojo.repbot.dao.access.guild.settings.sub.AbuseProtection;
+import de.chojo.repbot.dao.components.GuildHolder;
+import de.chojo.sqlutil.base.QueryFactoryHolder;
+import net.dv8tion.jda.api.entities.Guild;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In memory counters of the reputation given and received by the users of a guild.
+ * <p>
+ * The counters are loaded from the reputation log of the guild on first use and cover the last
+ * {@link AbuseProtection#maxGivenHours()} and {@link AbuseProtection#maxReceivedHours()} with a resolution of one hour.
+ * They are loaded again when the amount of hours changes.
+ */
+public class Limits extends QueryFactoryHolder implements GuildHolder {
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+    private final Reputation reputation;
+    private final Counters given = new Counters("donor_id");
+    private final Counters received = new Counters("receiver_id");
+
+    public Limits(Reputation reputation) {
+        super(reputation);
+        this.reputation = reputation;
+    }
+
+    /**
+     * Get the amount of reputation given by a user in the last {@link AbuseProtection#maxGivenHours()}.
+     *
+     * @param userId id of the user
+     * @return amount of given reputation
+     */
+    public synchronized int given(long userId) {
+        return given.count(userId, abuseProtection().maxGivenHours());
+    }
+
+    /**
+     * Get the amount of reputation received by a user in the last {@link AbuseProtection#maxReceivedHours()}.
+     *
+     * @param userId id of the user
+     * @return amount of received reputation
+     */
+    public synchronized int received(long userId) {
+        return received.count(userId, abuseProtection().maxReceivedHours());
+    }
+
+    /**
+     * Record a reputation.
+     *
+     * @param donorId    id of the donor or 0 if there is no donor
+     * @param receiverId id of the receiver
+     * @param time       time when the reputation was given
+     */
+    public synchronized void record(long donorId, long receiverId, Instant time) {
+        add(donorId, receiverId, time, 1);
+    }
+
+    /**
+     * Reverts a reputation which was recorded but not logged.
+     *
+     * @param donorId    id of the donor or 0 if there is no donor
+     * @param receiverId id of the receiver
+     * @param time       time when the reputation was given
+     */
+    public synchronized void revert(long donorId, long receiverId, Instant time) {
+        add(donorId, receiverId, time, -1);
+    }
+
+    /**
+     * Invalidates the counters. They will be loaded again on the next lookup.
+     */
+    public synchronized void invalidate() {
+        given.clear();
+        received.clear();
+    }
+
+    @Override
+    public Guild guild() {
+        return reputation.guild();
+    }
+
+    private void add(long donorId, long receiverId, Instant time, int amount) {
+        var hour = Math.floorDiv(time.toEpochMilli(), HOUR);
+        if (donorId != 0) given.add(donorId, hour, amount);
+        received.add(receiverId, hour, amount);
+    }
+
+    private AbuseProtection abuseProtection() {
+        return reputation.repGuild().settings().abuseProtection();
+    }
+
+    private static long currentHour() {
+        return Math.floorDiv(System.currentTimeMillis(), HOUR);
+    }
+
+    private class Counters {
+        private final String column;
+        private final Map<Long, HourlyCounter> users = new HashMap<>();
+        // window size which was used to load the counters. 0 if not loaded.
+        private int hours;
+        private long lastSweep;
+
+        private Counters(String column) {
+            this.column = column;
+        }
+
+        int count(long userId, int hours) {
+            load(hours);
+            sweep();
+            var counter = users.get(userId);
+            return counter == null ? 0 : counter.count(currentHour());
+        }
+
+        void add(long userId, long hour, int amount) {
+            // counters which are not loaded yet will receive the entry from the database
+            if (hours == 0) return;
+            users.computeIfAbsent(userId, key -> new HourlyCounter(hours)).add(hour, amount);
+        }
+
+        void clear() {
+            users.clear();
+            hours = 0;
+        }
+
+        private void load(int hours) {
+            if (this.hours == hours) return;
+            users.clear();
+            builder(Entry.class)
+                    .query("""
+                            SELECT
+                                %s AS user_id,
+                                DATE_TRUNC('hour', received) AS hour,
+                                COUNT(1) AS count
+                            FROM
+                                reputation_log
+                            WHERE guild_id = ?
+                                AND %s IS NOT NULL
+                                AND received > NOW() - ?::INTERVAL
+                            GROUP BY user_id, hour;
+                            """, column, column)
+                    .paramsBuilder(stmt -> stmt.setLong(guildId()).setString("%s hours".formatted(hours)))
+                    .readRow(rs -> new Entry(rs.getLong("user_id"), Math.floorDiv(rs.getTimestamp("hour").getTime(), HOUR), rs.getInt("count")))
+                    .allSync()
+                    .forEach(entry -> users.computeIfAbsent(entry.userId(), key -> new HourlyCounter(hours)).add(entry.hour(), entry.count()));
+            this.hours = hours;
+            lastSweep = currentHour();
+        }
+
+        /**
+         * Removes users without reputation in the window. This is done at most once per hour.
+         */
+        private void sweep() {
+            var hour = currentHour();
+            if (hour == lastSweep) return;
+            lastSweep = hour;
+            users.values().removeIf(counter -> counter.count(hour) == 0);
+        }
+    }
+
+    private record Entry(long userId, long hour, int count) {
+    }
+}
@@ -9,6 +9,8 @@ import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.entities.User;
 
+import javax.annotation.Nullable;
+import java.sql.Timestamp;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,11 +29,11 @@ public class Log extends QueryFactoryHolder implements GuildHolder {
      * @return sorted list of entries. the most recent first.
      */
     public ReputationLogAccess getUserReceivedLog(User user, int pageSize) {
-        return new ReputationLogAccess(() -> getUserReceivedLogPages(user, pageSize), page -> getUserReceivedLogPage(user, pageSize, page));
+        return new ReputationLogAccess(() -> getUserReceivedLogPages(user, pageSize), (page, previous) -> getUserReceivedLogPage(user, pageSize, page, previous));
     }
 
     public ReputationLogAccess userDonatedLog(User user, int pageSize) {
-        return new ReputationLogAccess(() -> getUserDonatedLogPages(user, pageSize), page -> getUserDonatedLogPage(user, pageSize, page));
+        return new ReputationLogAccess(() -> getUserDonatedLogPages(user, pageSize), (page, previous) -> getUserDonatedLogPage(user, pageSize, page, previous));
     }
 
     /**
@@ -40,8 +42,8 @@ public class Log extends QueryFactoryHolder implements GuildHolder {
      * @param user user
      * @return sorted list of entries. the most recent first.
      */
-    private List<ReputationLogEntry> getUserReceivedLogPage(User user, int pageSize, int page) {
-        return getLog("receiver_id", user.getIdLong(), pageSize, page);
+    private List<ReputationLogEntry> getUserReceivedLogPage(User user, int pageSize, int page, @Nullable ReputationLogEntry previous) {
+        return getLog("receiver_id", "donor_id", user.getIdLong(), pageSize, page, previous);
     }
 
     /**
@@ -50,8 +52,8 @@ public class Log extends QueryFactoryHolder implements GuildHolder {
      * @param user user
      * @return sorted list of entries. the most recent first.
      */
-    private List<ReputationLogEntry> getUserDonatedLogPage(User user, int pageSize, int page) {
-        return getLog("donor_id", user.getIdLong(), pageSize, page);
+    private List<ReputationLogEntry> getUserDonatedLogPage(User user, int pageSize, int page, @Nullable ReputationLogEntry previous) {
+        return getLog("donor_id", "receiver_id", user.getIdLong(), pageSize, page, previous);
     }
 
     /**
@@ -61,10 +63,49 @@ public class Log extends QueryFactoryHolder implements GuildHolder {
      * @return sorted list of entries. the most recent first.
      */
     public List<ReputationLogEntry> messageLog(long messageId, int count) {
-        return getLog("message_id", messageId, count, 0);
+        return getLog("message_id", "receiver_id", messageId, count, 0, null);
     }
 
-    private List<ReputationLogEntry> getLog(String column, long id, int pageSize, int page) {
+    /**
+     * Get a page of the log.
+     * <p>
+     * The page is sought after the last entry of the previous page if present. Otherwise the previous pages are
+     * skipped. Entries are ordered by the time they were received, the message and the other user of the entry, like in
+     * the seek indices of the log.
+     *
+     * @param column column to filter by
+     * @param other  donor or receiver column which is not filtered, to order entries of the same message
+     */
+    private List<ReputationLogEntry> getLog(String column, String other, long id, int pageSize, int page, @Nullable ReputationLogEntry previous) {
+        if (previous != null) {
+            // the entry reads missing users as 0
+            var otherId = nullable("donor_id".equals(other) ? previous.donorId() : previous.receiverId());
+            return builder(ReputationLogEntry.class)
+                    .query("""
+                            SELECT
+                                guild_id,
+                                donor_id,
+                                receiver_id,
+                                message_id,
+                                received,
+                                ref_message_id,
+                                channel_id,
+                                cause
+                            FROM
+                                reputation_log
+                            WHERE
+                                %s = ?
+                                AND guild_id = ?
+                                AND (received, message_id, COALESCE(%2$s, 0)) < (?, ?, COALESCE(?::BIGINT, 0))
+                            ORDER BY received DESC, message_id DESC, COALESCE(%2$s, 0) DESC
+                            LIMIT ?;
+                            """, column, other)
+                    .paramsBuilder(stmt -> stmt.setLong(id).setLong(guildId())
+                            .setTimestamp(Timestamp.valueOf(previous.received())).setLong(previous.messageId())
+                            .setLong(otherId).setInt(pageSize))
+                    .readRow(r -> ReputationLogEntry.build(this, r))
+                    .allSync();
+        }
         return builder(ReputationLogEntry.class)
                 .query("""
                         SELECT
@@ -81,15 +122,20 @@ public class Log extends QueryFactoryHolder implements GuildHolder {
                         WHERE
                             %s = ?
                             AND guild_id = ?
-                        ORDER BY received DESC
+                        ORDER BY received DESC, message_id DESC, COALESCE(%2$s, 0) DESC
                         OFFSET ?
                         LIMIT ?;
-                        """, column)
+                        """, column, other)
                 .paramsBuilder(stmt -> stmt.setLong(id).setLong(guildId()).setInt(page * pageSize).setInt(pageSize))
                 .readRow(r -> ReputationLogEntry.build(this, r))
                 .allSync();
     }
 
+    @Nullable
+    private static Long nullable(long userId) {
+        return userId == 0 ? null : userId;
+    }
+
     public Optional<ReputationLogEntry> getLatestReputation() {
         return builder(ReputationLogEntry.class)
                 .query("""
@@ -178,4 +224,8 @@ public class Log extends QueryFactoryHolder implements GuildHolder {
     public Guild guild() {
         return reputation.guild();
     }
+
+    public Reputation reputation() {
+        return reputation;
+    }
 }
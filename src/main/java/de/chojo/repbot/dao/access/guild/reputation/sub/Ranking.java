@@ -1,5 +1,6 @@
 package de.chojo.repbot.dao.access.guild.reputation.sub;
 
+import de.chojo.repbot.dao.access.ReputationLogWriter;
 import de.chojo.repbot.dao.access.guild.reputation.Reputation;
 import de.chojo.repbot.dao.access.guild.settings.sub.ReputationMode;
 import de.chojo.repbot.dao.components.GuildHolder;
@@ -8,44 +9,41 @@ import de.chojo.repbot.dao.snapshots.RepProfile;
 import de.chojo.sqlutil.base.QueryFactoryHolder;
 import net.dv8tion.jda.api.entities.Guild;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Ranking of the guild.
+ * <p>
+ * The ranking of each reputation mode is held in a {@link Leaderboard}. A leaderboard is loaded on first use and updated
+ * when reputation is logged or the offset of a user changes. It is loaded again after {@link #MAX_AGE} to pick up
+ * changes which are not tracked, like removed users. Leaderboards of rolling modes are loaded again when the day
+ * changes. The leaderboards are dropped together with the {@link Reputation} of an idle guild.
+ * <p>
+ * Leaderboards are loaded outside of the monitor of the ranking and published once they are loaded. Changes made while
+ * a leaderboard is loaded are applied to it before it is published, unless the query already read them. Reputation is
+ * matched against the batches of the {@link ReputationLogWriter} which were written before the query and started after
+ * it. A leaderboard is loaded again on the next lookup if this is not known for a change. Lookups keep using an
+ * outdated leaderboard until the new one is published, so only the first load of a leaderboard waits for the query.
+ */
 public class Ranking extends QueryFactoryHolder implements GuildHolder {
+    private static final long MAX_AGE = TimeUnit.MINUTES.toMillis(10);
     private final Reputation reputation;
+    private final Map<ReputationMode, Board> boards = new EnumMap<>(ReputationMode.class);
+    private final Map<ReputationMode, Load> loads = new EnumMap<>(ReputationMode.class);
 
     public Ranking(Reputation reputation) {
         super(reputation);
         this.reputation = reputation;
     }
 
-    private int getRankingPageCount(int pageSize) {
-        return pages(pageSize, "user_reputation");
-    }
-
-    private Integer getWeekRankingPageCount(int pageSize) {
-        return pages(pageSize, "user_reputation_week");
-    }
-
-    private Integer getMonthRankingPageCount(int pageSize) {
-        return pages(pageSize, "user_reputation_month");
-    }
-
-    private Integer pages(int pageSize, String table) {
-        return builder(Integer.class)
-                .query("""
-                        SELECT
-                            CEIL(COUNT(1)::numeric / ?) AS count
-                        FROM
-                            %s
-                        WHERE guild_id = ?
-                            AND reputation != 0;
-                        """, table)
-                .paramsBuilder(stmt -> stmt.setInt(pageSize).setLong(guildId()))
-                .readRow(row -> row.getInt("count"))
-                .firstSync()
-                .orElse(1);
-    }
-
     public GuildRanking defaultRanking(int pageSize) {
         return byMode(reputation.repGuild().settings().general().reputationMode(), pageSize);
     }
@@ -66,7 +64,7 @@ public class Ranking extends QueryFactoryHolder implements GuildHolder {
      * @return a sorted list of reputation users
      */
     public GuildRanking total(int pageSize) {
-        return new GuildRanking("command.top.total", () -> getRankingPageCount(pageSize), page -> getRankingPage(pageSize, page));
+        return ranking("command.top.total", ReputationMode.TOTAL, pageSize);
     }
 
     /**
@@ -76,7 +74,7 @@ public class Ranking extends QueryFactoryHolder implements GuildHolder {
      * @return a sorted list of reputation users
      */
     public GuildRanking week(int pageSize) {
-        return new GuildRanking("command.top.weekTitle", () -> getWeekRankingPageCount(pageSize), page -> getWeekRankingPage(pageSize, page));
+        return ranking("command.top.weekTitle", ReputationMode.ROLLING_WEEK, pageSize);
     }
 
     /**
@@ -86,50 +84,192 @@ public class Ranking extends QueryFactoryHolder implements GuildHolder {
      * @return a sorted list of reputation users
      */
     public GuildRanking month(int pageSize) {
-        return new GuildRanking("command.top.monthTitle", () -> getMonthRankingPageCount(pageSize), page -> getMonthRankingPage(pageSize, page));
+        return ranking("command.top.monthTitle", ReputationMode.ROLLING_MONTH, pageSize);
     }
 
     /**
-     * Get the ranking of the guild.
+     * Get the rank of a user in a reputation mode.
      *
-     * @param pageSize the size of a page
-     * @param page     the number of the page. zero based
-     * @return a sorted list of reputation users
+     * @param mode   reputation mode
+     * @param userId id of the user
+     * @return one based rank or 0 if the user has no reputation
      */
-    private List<RepProfile> getRankingPage(int pageSize, int page) {
-        return getRankingPage(pageSize, page, "user_reputation");
+    public int rank(ReputationMode mode, long userId) {
+        return leaderboard(mode).rank(userId);
     }
 
-    private List<RepProfile> getWeekRankingPage(int pageSize, int page) {
-        return getRankingPage(pageSize, page, "user_reputation_week");
+    /**
+     * Get the leaderboard of a reputation mode.
+     *
+     * @param mode reputation mode
+     * @return leaderboard
+     */
+    public Leaderboard leaderboard(ReputationMode mode) {
+        Load load;
+        boolean loading;
+        synchronized (this) {
+            var board = boards.get(mode);
+            if (board != null && !board.isOutdated(mode)) return board.leaderboard();
+            load = loads.get(mode);
+            loading = load != null;
+            if (loading) {
+                // the leaderboard is loaded already by another lookup
+                if (board != null) return board.leaderboard();
+            } else {
+                load = new Load(LocalDate.now());
+                loads.put(mode, load);
+            }
+        }
+        // wait outside of the monitor. The load needs it to publish the leaderboard.
+        if (loading) return load.leaderboard().join();
+        return publish(mode, load);
     }
 
-    private List<RepProfile> getMonthRankingPage(int pageSize, int page) {
-        return getRankingPage(pageSize, page, "user_reputation_month");
+    private Leaderboard publish(ReputationMode mode, Load load) {
+        var writer = reputation.repGuild().logWriter();
+        Leaderboard leaderboard;
+        long written;
+        long started;
+        try {
+            // batches up to this one are committed and part of the query
+            written = writer.writtenBatch();
+            leaderboard = load(mode);
+            // batches after this one are committed after the query
+            started = writer.startedBatch();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                loads.remove(mode, load);
+            }
+            load.leaderboard().completeExceptionally(e);
+            throw e;
+        }
+        synchronized (this) {
+            var unknown = false;
+            for (var change : load.changes()) {
+                if (change.batch() != Change.NO_BATCH && change.batch() <= written) continue;
+                leaderboard.add(change.userId(), change.amount());
+                // the change might be read by the query as well
+                if (change.batch() == Change.NO_BATCH || change.batch() <= started) unknown = true;
+            }
+            // the load is discarded when the leaderboards were invalidated in the meantime
+            if (loads.remove(mode, load)) {
+                // an uncertain leaderboard is outdated right away and loaded again on the next lookup
+                boards.put(mode, new Board(leaderboard, unknown ? 0 : System.currentTimeMillis(), load.day()));
+            }
+        }
+        load.leaderboard().complete(leaderboard);
+        return leaderboard;
     }
 
-    private List<RepProfile> getRankingPage(int pageSize, int page, String table) {
-        return builder(RepProfile.class)
+    /**
+     * Add a logged reputation to the loaded leaderboards.
+     *
+     * @param userId   id of the receiver
+     * @param received time when the reputation was received
+     */
+    public synchronized void received(long userId, Instant received) {
+        var day = LocalDate.ofInstant(received, ZoneId.systemDefault());
+        boards.forEach((mode, board) -> {
+            if (isInWindow(mode, board.day(), day)) board.leaderboard().add(userId, 1);
+        });
+        if (loads.isEmpty()) return;
+        // this is called when the batch of the reputation was written
+        var batch = reputation.repGuild().logWriter().writtenBatch();
+        loads.forEach((mode, load) -> {
+            if (isInWindow(mode, load.day(), day)) load.changes().add(new Change(batch, userId, 1));
+        });
+    }
+
+    /**
+     * Add a changed reputation offset to the loaded leaderboards.
+     *
+     * @param userId id of the user
+     * @param amount amount which was added to the offset. Negative when removed.
+     */
+    public synchronized void offset(long userId, long amount) {
+        var board = boards.get(ReputationMode.TOTAL);
+        if (board != null) board.leaderboard().add(userId, amount);
+        var load = loads.get(ReputationMode.TOTAL);
+        if (load != null) load.changes().add(new Change(Change.NO_BATCH, userId, amount));
+    }
+
+    /**
+     * Invalidates the leaderboards. They will be loaded again on the next lookup.
+     */
+    public synchronized void invalidate() {
+        boards.clear();
+        loads.clear();
+    }
+
+    private static boolean isInWindow(ReputationMode mode, LocalDate board, LocalDate received) {
+        // old reputation is not part of the rolling modes
+        return mode.days() == 0 || !received.isBefore(board.minusDays(mode.days()));
+    }
+
+    private GuildRanking ranking(String title, ReputationMode mode, int pageSize) {
+        return new GuildRanking(title,
+                () -> (int) Math.ceil((double) leaderboard(mode).size() / pageSize),
+                page -> page(mode, pageSize, page));
+    }
+
+    private List<RepProfile> page(ReputationMode mode, int pageSize, int page) {
+        return leaderboard(mode).page(page * pageSize, pageSize).stream()
+                .map(RepProfile::buildReceivedRanking)
+                .toList();
+    }
+
+    private Leaderboard load(ReputationMode mode) {
+        var leaderboard = new Leaderboard();
+        builder(Leaderboard.Entry.class)
                 .query("""
                         SELECT
-                            rank,
                             user_id,
                             reputation
                         FROM
                             %s
                         WHERE guild_id = ?
-                            AND reputation != 0
-                        ORDER BY reputation DESC
-                        OFFSET ?
-                        LIMIT ?;
-                        """, table)
-                .paramsBuilder(stmt -> stmt.setLong(guildId()).setInt(page * pageSize).setInt(pageSize))
-                .readRow(RepProfile::buildReceivedRanking)
-                .allSync();
+                            AND reputation != 0;
+                        """, mode.tableName())
+                .paramsBuilder(stmt -> stmt.setLong(guildId()))
+                .readRow(row -> new Leaderboard.Entry(0, row.getLong("user_id"), row.getLong("reputation")))
+                .allSync()
+                .forEach(entry -> leaderboard.set(entry.userId(), entry.reputation()));
+        return leaderboard;
     }
 
     @Override
     public Guild guild() {
         return reputation.guild();
     }
+
+    private record Board(Leaderboard leaderboard, long loaded, LocalDate day) {
+        boolean isOutdated(ReputationMode mode) {
+            if (System.currentTimeMillis() - loaded > MAX_AGE) return true;
+            return mode.days() != 0 && !day.equals(LocalDate.now());
+        }
+    }
+
+    /**
+     * A leaderboard which is currently loaded.
+     *
+     * @param day         day when the load was started
+     * @param changes     changes made while the leaderboard is loaded. Guarded by the ranking.
+     * @param leaderboard the leaderboard once it is loaded
+     */
+    private record Load(LocalDate day, List<Change> changes, CompletableFuture<Leaderboard> leaderboard) {
+        Load(LocalDate day) {
+            this(day, new ArrayList<>(), new CompletableFuture<>());
+        }
+    }
+
+    /**
+     * A change of the reputation of a user while a leaderboard is loaded.
+     *
+     * @param batch  batch of the {@link ReputationLogWriter} which wrote the change or {@link #NO_BATCH}
+     * @param userId id of the user
+     * @param amount amount which was added
+     */
+    private record Change(long batch, long userId, long amount) {
+        static final long NO_BATCH = -1;
+    }
 }
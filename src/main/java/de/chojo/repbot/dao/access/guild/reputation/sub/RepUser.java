@@ -1,13 +1,15 @@
 package de.chojo.repbot.dao.access.guild.reputation.sub;
 
 import de.chojo.repbot.analyzer.ThankType;
+import de.chojo.repbot.dao.access.ReputationLogWriter;
 import de.chojo.repbot.dao.access.guild.reputation.Reputation;
 import de.chojo.repbot.dao.access.guild.reputation.sub.user.Gdpr;
 import de.chojo.repbot.dao.access.guild.settings.sub.AbuseProtection;
+import de.chojo.repbot.dao.access.guild.settings.sub.ReputationMode;
 import de.chojo.repbot.dao.components.MemberHolder;
 import de.chojo.repbot.dao.snapshots.RepProfile;
 import de.chojo.sqlutil.base.QueryFactoryHolder;
-import de.chojo.sqlutil.wrapper.stage.StatementStage;
+import de.chojo.sqlutil.wrapper.stage.ResultStage;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.Message;
@@ -16,10 +18,10 @@ import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 
 import javax.annotation.Nullable;
-import java.sql.Timestamp;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -56,7 +58,7 @@ public class RepUser extends QueryFactoryHolder implements MemberHolder {
      * @return true if added
      */
     public boolean addReputation(long amount) {
-        return builder()
+        var result = builder()
                        .query("""
                                INSERT INTO reputation_offset(guild_id, user_id, amount) VALUES (?,?,?)
                                    ON CONFLICT(guild_id, user_id)
@@ -65,6 +67,8 @@ public class RepUser extends QueryFactoryHolder implements MemberHolder {
                        .paramsBuilder(stmt -> stmt.setLong(guildId()).setLong(userId()).setLong(amount))
                        .insert()
                        .executeSync() > 0;
+        if (result) reputation.ranking().offset(userId(), amount);
+        return result;
     }
 
     /**
@@ -85,7 +89,7 @@ public class RepUser extends QueryFactoryHolder implements MemberHolder {
      */
     public boolean setReputation(long amount) {
         var offset = amount - profile().rawReputation();
-        return builder()
+        var result = builder()
                        .query("""
                                INSERT INTO reputation_offset(guild_id, user_id, amount) VALUES (?,?,?)
                                    ON CONFLICT(guild_id, user_id)
@@ -94,34 +98,26 @@ public class RepUser extends QueryFactoryHolder implements MemberHolder {
                        .paramsBuilder(stmt -> stmt.setLong(guildId()).setLong(userId()).setLong(offset))
                        .insert()
                        .executeSync() > 0;
+        // the previous offset is unknown here
+        if (result) reputation.ranking().invalidate();
+        return result;
     }
 
     /**
      * Log reputation for a user.
+     * <p>
+     * The reputation is written by the {@link ReputationLogWriter}. Cooldowns and limits are updated before the
+     * reputation is written.
      *
      * @param donor      donator of the reputation
      * @param message    message to log
      * @param refMessage reference message if available
      * @param type       type of reputation
-     * @return true if the repuation was logged.
+     * @return future which completes with true if the repuation was logged, with false if it was logged before or
+     * exceptionally if it could not be written.
      */
-    public boolean addReputation(@Nullable Member donor, @NotNull Message message, @Nullable Message refMessage, ThankType type) {
-        var success = builder()
-                              .query("""
-                                      INSERT INTO
-                                      reputation_log(guild_id, donor_id, receiver_id, message_id, ref_message_id, channel_id, cause) VALUES(?,?,?,?,?,?,?)
-                                          ON CONFLICT(guild_id, donor_id, receiver_id, message_id)
-                                              DO NOTHING;
-                                      """)
-                              .paramsBuilder(stmt -> stmt.setLong(guildId()).setLong(donor == null ? 0 : donor.getIdLong()).setLong(userId())
-                                      .setLong(message.getIdLong()).setLong(refMessage == null ? null : refMessage.getIdLong())
-                                      .setLong(message.getChannel().getIdLong()).setString(type.name()))
-                              .insert()
-                              .executeSync() > 0;
-        if (success) {
-            log.debug("{} received one reputation from {} for message {}", user().getName(), donor != null ? donor.getEffectiveName() : "unkown", message.getIdLong());
-        }
-        return success;
+    public CompletableFuture<Boolean> addReputation(@Nullable Member donor, @NotNull Message message, @Nullable Message refMessage, ThankType type) {
+        return submit(donor, message, refMessage, type, Instant.now());
     }
 
     /**
@@ -133,28 +129,69 @@ public class RepUser extends QueryFactoryHolder implements MemberHolder {
      * @param message    message to log
      * @param refMessage reference message if available
      * @param type       type of reputation
-     * @return true if the repuation was logged.
+     * @return future which completes with true if the repuation was logged, with false if it was logged before or
+     * exceptionally if it could not be written.
+     */
+    public CompletableFuture<Boolean> addOldReputation(@Nullable Member donor, @NotNull Message message, @Nullable Message refMessage, ThankType type) {
+        return submit(donor, message, refMessage, type, message.getTimeCreated().toInstant());
+    }
+
+    /**
+     * Log reputation for a user if the cooldown and the limits of the guild allow it.
+     * <p>
+     * The cooldown between donor and receiver, the received limit of the receiver and the given limit of the donor are
+     * checked and updated in one step for the guild. Concurrent submissions can not pass the checks at the same time.
+     *
+     * @param donor      donator of the reputation
+     * @param message    message to log
+     * @param refMessage reference message if available
+     * @param type       type of reputation
+     * @return future which completes with the result of the submission
      */
-    public boolean addOldReputation(@Nullable Member donor, @NotNull Message message, @Nullable Message refMessage, ThankType type) {
-        var success = builder()
-                              .query("""
-                                      INSERT INTO
-                                      reputation_log(guild_id, donor_id, receiver_id, message_id, ref_message_id, channel_id, cause, received) VALUES(?,?,?,?,?,?,?,?)
-                                          ON CONFLICT(guild_id, donor_id, receiver_id, message_id)
-                                              DO NOTHING;
-                                      """)
-                              .paramsBuilder(stmt -> stmt.setLong(guildId()).setLong(donor == null ? 0 : donor.getIdLong()).setLong(userId())
-                                      .setLong(message.getIdLong()).setLong(refMessage == null ? null : refMessage.getIdLong())
-                                      .setLong(message.getChannel().getIdLong()).setString(type.name())
-                                      .setTimestamp(Timestamp.from(message.getTimeCreated().toInstant())))
-                              .insert()
-                              .executeSync() > 0;
-        if (success) {
-            log.debug("{} received one reputation from {} for message {}", user().getName(), donor != null ? donor.getEffectiveName() : "unkown", message.getIdLong());
+    public CompletableFuture<SubmitResult> submitReputation(@NotNull Member donor, @NotNull Message message, @Nullable Message refMessage, ThankType type) {
+        var abuseProtection = reputation.repGuild().settings().abuseProtection();
+        CompletableFuture<Boolean> logged;
+        // cooldowns and limits are guarded separately. We lock the guild reputation to check and record them at once.
+        synchronized (reputation) {
+            if (getLastRatedDuration(donor).toMinutes() < abuseProtection.cooldown()) {
+                return CompletableFuture.completedFuture(SubmitResult.COOLDOWN);
+            }
+            if (abuseProtection.isReceiverLimit() && countReceived() >= abuseProtection.maxReceived()) {
+                return CompletableFuture.completedFuture(SubmitResult.RECEIVER_LIMIT);
+            }
+            if (abuseProtection.isDonorLimit() && reputation.limits().given(donor.getIdLong()) >= abuseProtection.maxGiven()) {
+                return CompletableFuture.completedFuture(SubmitResult.DONOR_LIMIT);
+            }
+            logged = submit(donor, message, refMessage, type, Instant.now());
         }
-        return success;
+        return logged.handle((success, err) -> {
+            if (err != null) return SubmitResult.FAILED;
+            return success ? SubmitResult.LOGGED : SubmitResult.DUPLICATE;
+        });
     }
 
+    private CompletableFuture<Boolean> submit(@Nullable Member donor, @NotNull Message message, @Nullable Message refMessage, ThankType type, Instant received) {
+        var donorId = donor == null ? 0 : donor.getIdLong();
+        if (donor != null) reputation.cooldowns().record(donorId, userId(), received);
+        reputation.limits().record(donorId, userId(), received);
+        var entry = new ReputationLogWriter.Entry(guildId(), donorId, userId(), message.getIdLong(),
+                refMessage == null ? null : refMessage.getIdLong(), message.getChannel().getIdLong(), type, received);
+        return reputation.repGuild().logWriter().submit(entry).whenComplete((success, err) -> {
+            if (err != null) {
+                // the reputation was not written. It must not count against the donor.
+                reputation.limits().revert(donorId, userId(), received);
+                if (donor != null) reputation.cooldowns().revert(donorId, userId(), received);
+                return;
+            }
+            if (success) {
+                reputation.ranking().received(userId(), received);
+                log.debug("{} received one reputation from {} for message {}", user().getName(), donor != null ? donor.getEffectiveName() : "unkown", message.getIdLong());
+            } else {
+                // the reputation already existed and was counted before
+                reputation.limits().revert(donorId, userId(), received);
+            }
+        });
+    }
 
     /**
      * Get the last time where the the user gave reputation to the user or received reputation from this user
@@ -185,75 +222,125 @@ public class RepUser extends QueryFactoryHolder implements MemberHolder {
 
     /**
      * Get the time since the last reputation.
+     * <p>
+     * The lookup is done in the {@link Cooldowns} of the guild and only knows reputations within the cooldown.
      *
      * @param other receiver
      * @return the time since the last vote in the requested time unit or 1 year if no entry was found.
      */
     public Duration getLastRatedDuration(Member other) {
-        return getLastReputation(other).map(last -> Duration.between(last, Instant.now())).orElseGet(() -> Duration.ofDays(365));
+        return reputation.cooldowns().last(userId(), other.getIdLong()).map(last -> Duration.between(last, Instant.now())).orElseGet(() -> Duration.ofDays(365));
+    }
+
+    /**
+     * Get the current reputation of the user.
+     * <p>
+     * Unlike {@link #profile()} this does not compute the ranks of the user. In {@link ReputationMode#TOTAL} this is a
+     * single read of the reputation totals of the user. Rolling modes sum up the daily buckets of the user. Users are
+     * filtered like in the reputation views, so users which are scheduled for cleanup have no reputation.
+     *
+     * @return the reputation of the user
+     */
+    public long currentReputation() {
+        var mode = reputation.repGuild().settings().general().reputationMode();
+        if (mode != ReputationMode.TOTAL) {
+            return builder(Long.class)
+                    .query("""
+                            SELECT COALESCE(SUM(received), 0) AS reputation
+                            FROM reputation_daily d
+                            WHERE guild_id = ? AND user_id = ? AND day >= CURRENT_DATE - ?
+                              AND NOT EXISTS(SELECT 1
+                                             FROM cleanup_schedule clean
+                                             WHERE clean.guild_id = d.guild_id
+                                               AND clean.user_id = d.user_id);
+                            """)
+                    .paramsBuilder(stmt -> stmt.setLong(guildId()).setLong(userId()).setInt(mode.days()))
+                    .readRow(rs -> rs.getLong("reputation"))
+                    .firstSync()
+                    .orElse(0L);
+        }
+        return builder(Long.class)
+                .query("""
+                        SELECT received + rep_offset AS reputation
+                        FROM user_reputation_totals t
+                        WHERE guild_id = ? AND user_id = ?
+                          AND (received != 0 OR donated != 0)
+                          AND NOT EXISTS(SELECT 1
+                                         FROM cleanup_schedule clean
+                                         WHERE clean.guild_id = t.guild_id
+                                           AND clean.user_id = t.user_id);
+                        """)
+                .paramsBuilder(stmt -> stmt.setLong(guildId()).setLong(userId()))
+                .readRow(rs -> rs.getLong("reputation"))
+                .firstSync()
+                .orElse(0L);
     }
 
     /**
      * Get the reputation user.
+     * <p>
+     * The rank is looked up in the {@link Ranking} of the guild. The reputation is read by the primary key of the user,
+     * filtered like in the reputation views.
      *
      * @return the reputation user
      */
     public RepProfile profile() {
         var mode = reputation.repGuild().settings().general().reputationMode();
+        var rank = reputation.ranking().rank(mode, userId());
         // We probably dont want to cache the profile. There are just too many factors which can change the user reputation.
         var builder = builder(RepProfile.class);
-        StatementStage<RepProfile> query;
+        ResultStage<RepProfile> query;
         if (mode.isSupportsOffset()) {
             query = builder
                     .query("""
-                            SELECT rank, rank_donated, user_id, reputation, rep_offset, raw_reputation, donated
-                            FROM %s
-                            WHERE guild_id = ? AND user_id = ?;
-                            """, mode.tableName());
+                            SELECT user_id, received + rep_offset AS reputation, rep_offset, received AS raw_reputation, donated
+                            FROM user_reputation_totals t
+                            WHERE guild_id = ? AND user_id = ?
+                              AND (received != 0 OR donated != 0)
+                              AND NOT EXISTS(SELECT 1
+                                             FROM cleanup_schedule clean
+                                             WHERE clean.guild_id = t.guild_id
+                                               AND clean.user_id = t.user_id);
+                            """)
+                    .paramsBuilder(stmt -> stmt.setLong(guildId()).setLong(userId()));
         } else {
             query = builder
                     .query("""
-                            SELECT rank, rank_donated, user_id, reputation, 0 AS rep_offset, reputation AS raw_reputation, donated
-                            FROM %s
-                            WHERE guild_id = ? AND user_id = ?;
-                            """, mode.tableName());
+                            SELECT user_id, SUM(received) AS reputation, 0 AS rep_offset, SUM(received) AS raw_reputation, SUM(donated) AS donated
+                            FROM reputation_daily d
+                            WHERE guild_id = ? AND user_id = ? AND day >= CURRENT_DATE - ?
+                              AND NOT EXISTS(SELECT 1
+                                             FROM cleanup_schedule clean
+                                             WHERE clean.guild_id = d.guild_id
+                                               AND clean.user_id = d.user_id)
+                            GROUP BY user_id
+                            HAVING SUM(received) != 0 OR SUM(donated) != 0;
+                            """)
+                    .paramsBuilder(stmt -> stmt.setLong(guildId()).setLong(userId()).setInt(mode.days()));
         }
 
-        return query.paramsBuilder(stmt -> stmt.setLong(guildId()).setLong(userId()))
-                .readRow(row -> RepProfile.buildProfile(this, row))
+        return query.readRow(row -> RepProfile.buildProfile(this, rank, row))
                 .firstSync()
                 .orElseGet(() -> RepProfile.empty(this, user()));
 
     }
 
     /**
-     * Get the amount of received reputation based on {@link AbuseProtection#maxReceivedHours()}
+     * Get the amount of received reputation in this guild based on {@link AbuseProtection#maxReceivedHours()}
      *
      * @return amount of received reputation
      */
     public int countReceived() {
-        var hours = reputation().repGuild().settings().abuseProtection().maxReceivedHours();
-        return builder(Integer.class)
-                .query("SELECT COUNT(1) FROM reputation_log WHERE received > NOW() - ?::INTERVAL AND receiver_id = ?")
-                .paramsBuilder(stmt -> stmt.setString("%s hours".formatted(hours)).setLong(memberId()))
-                .readRow(rs -> rs.getInt(1))
-                .firstSync()
-                .orElse(0);
+        return reputation.limits().received(userId());
     }
 
     /**
-     * Get the amount of received reputation based on {@link AbuseProtection#maxGivenHours()}
+     * Get the amount of given reputation in this guild based on {@link AbuseProtection#maxGivenHours()}
      *
      * @return amount of given reputation
      */
     public int countGiven() {
-        var hours = reputation().repGuild().settings().abuseProtection().maxGivenHours();
-        return builder(Integer.class)
-                .query("SELECT COUNT(1) FROM reputation_log WHERE received > NOW() - ?::INTERVAL AND donor_id = ?")
-                .paramsBuilder(stmt -> stmt.setString("%s hours".formatted(hours)).setLong(memberId()))
-                .readRow(rs -> rs.getInt(1))
-                .firstSync()
-                .orElse(0);
+        return reputation.limits().given(userId());
     }
 
     @Override
@@ -0,0 +1,35 @@
+package de.chojo.repbot.dao.access.guild.reputation.sub;
+
+/**
+ * Result of {@link RepUser#submitReputation(net.dv8tion.jda.api.entities.Member, net.dv8tion.jda.api.entities.Message, net.dv8tion.jda.api.entities.Message, de.chojo.repbot.analyzer.ThankType)}.
+ */
+public enum SubmitResult {
+    /**
+     * The reputation was logged.
+     */
+    LOGGED,
+    /**
+     * The donor and receiver are on cooldown.
+     */
+    COOLDOWN,
+    /**
+     * The receiver reached the limit of received reputation.
+     */
+    RECEIVER_LIMIT,
+    /**
+     * The donor reached the limit of given reputation.
+     */
+    DONOR_LIMIT,
+    /**
+     * The reputation was already logged.
+     */
+    DUPLICATE,
+    /**
+     * The reputation could not be written.
+     */
+    FAILED;
+
+    public boolean isLogged() {
+        return this == LOGGED;
+    }
+}
@@ -9,165 +9,171 @@ import de.chojo.repbot.dao.access.guild.settings.sub.Ranks;
 import de.chojo.repbot.dao.access.guild.settings.sub.Thanking;
 import de.chojo.repbot.dao.components.GuildHolder;
 import de.chojo.repbot.dao.pagination.Announcements;
+import de.chojo.repbot.dao.snapshots.ReputationRank;
 import de.chojo.sqlutil.base.QueryFactoryHolder;
 import net.dv8tion.jda.api.entities.Guild;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+import static de.chojo.repbot.util.Guilds.prettyName;
+
+/**
+ * Settings of a guild.
+ * <p>
+ * The state of the settings is a {@link SettingsSnapshot} which is loaded on first access. Changes of the thanking
+ * settings and ranks replace the snapshot, so readers never see a partially applied change of them and do not need to
+ * lock. The abuse protection, announcement, reputation, general and message settings are held by the snapshot, but are
+ * still changed in place.
+ * <p>
+ * Settings which could not be loaded are not replaced by defaults. The load is retried on a later access, with a delay
+ * which grows up to {@link #MAX_RETRY_DELAY} while the load keeps failing. Accesses in the meantime fail.
+ */
 public class Settings extends QueryFactoryHolder implements GuildHolder {
+    private static final long RETRY_DELAY = TimeUnit.SECONDS.toMillis(1);
+    private static final long MAX_RETRY_DELAY = TimeUnit.MINUTES.toMillis(1);
     private final RepGuild repGuild;
-    private AbuseProtection abuseProtection;
-    private General general;
-    private Reputation reputation;
-    private Ranks ranks;
-    private Thanking thanking;
-    private Announcements announcements;
-    private Messages messages;
+    private final AtomicReference<SettingsSnapshot> snapshot = new AtomicReference<>();
+    private final Thanking thanking;
+    private final Ranks ranks;
+    // guarded by this
+    private int failures;
+    private long retryAt;
 
     public Settings(RepGuild repGuild) {
         super(repGuild);
         this.repGuild = repGuild;
+        thanking = new Thanking(this);
+        ranks = new Ranks(this);
     }
 
     public AbuseProtection abuseProtection() {
-        if (abuseProtection != null) {
-            return abuseProtection;
-        }
-        abuseProtection = builder(AbuseProtection.class)
-                .query("""
-                        SELECT
-                            min_messages,
-                            max_message_age,
-                            receiver_context,
-                            donor_context,
-                            cooldown,
-                            max_given,
-                            max_given_hours,
-                            max_received,
-                            max_received_hours,
-                            max_message_reputation
-                        FROM
-                            abuse_protection
-                        WHERE guild_id = ?;
-                        """)
-                .paramsBuilder(stmt -> stmt.setLong(guildId()))
-                .readRow(rs -> AbuseProtection.build(this, rs))
-                .firstSync()
-                .orElseGet(() -> new AbuseProtection(this));
-        return abuseProtection;
+        return snapshot().abuseProtection();
     }
 
     public Announcements announcements() {
-        if (announcements != null) {
-            return announcements;
-        }
-        announcements = builder(Announcements.class)
-                .query("""
-                        SELECT
-                            active,
-                            same_channel,
-                            channel_id
-                        FROM
-                            announcements
-                        WHERE guild_id = ?;
-                        """)
-                .paramsBuilder(stmt -> stmt.setLong(guildId()))
-                .readRow(rs -> Announcements.build(this, rs))
-                .firstSync()
-                .orElseGet(() -> new Announcements(this));
-        return announcements;
+        return snapshot().announcements();
     }
 
     public Reputation reputation() {
-        if (reputation != null) {
-            return reputation;
-        }
-        reputation = builder(Reputation.class)
-                .query("""
-                        SELECT
-                            reactions_active,
-                            answer_active,
-                            mention_active,
-                            fuzzy_active,
-                            embed_active,
-                            skip_single_embed
-                        FROM
-                            reputation_settings
-                        WHERE guild_id = ?;
-                        """)
-                .paramsBuilder(stmt -> stmt.setLong(guildId()))
-                .readRow(rs -> Reputation.build(this, rs))
-                .firstSync()
-                .orElseGet(() -> new Reputation(this));
-        return reputation;
+        return snapshot().reputation();
     }
 
     public General general() {
-        if (general != null) {
-            return general;
-        }
-        general = builder(General.class)
-                .query("""
-                        SELECT
-                            language,
-                            emoji_debug,
-                            stack_roles,
-                            reputation_mode
-                        FROM
-                            guild_settings
-                        WHERE guild_id = ?;
-                        """)
-                .paramsBuilder(stmt -> stmt.setLong(guildId()))
-                .readRow(rs -> General.build(this, rs))
-                .firstSync()
-                .orElseGet(() -> new General(this));
-        return general;
+        return snapshot().general();
     }
 
     public Thanking thanking() {
-        if (thanking != null) {
-            return thanking;
-        }
-        thanking = builder(Thanking.class)
-                .query("""
-                        SELECT
-                            reaction,
-                            channel_whitelist
-                        FROM
-                            thank_settings
-                        WHERE guild_id = ?;
-                        """)
-                .paramsBuilder(stmt -> stmt.setLong(guildId()))
-                .readRow(rs -> Thanking.build(this, rs))
-                .firstSync()
-                .orElseGet(() -> new Thanking(this));
         return thanking;
     }
+
     public Messages messages() {
-        if (messages != null) {
-            return messages;
-        }
-        messages = builder(Messages.class)
-                .query("""
-                        SELECT
-                            reaction_confirmation
-                        FROM
-                            message_states
-                        WHERE guild_id = ?;
-                        """)
-                .paramsBuilder(stmt -> stmt.setLong(guildId()))
-                .readRow(rs -> Messages.build(this, rs))
-                .firstSync()
-                .orElseGet(() -> new Messages(this));
-        return messages;
+        return snapshot().messages();
     }
 
     public Ranks ranks() {
-        if (ranks != null) {
-            return ranks;
-        }
-        ranks = new Ranks(this, general().stackRoles());
         return ranks;
     }
 
+    /**
+     * Gets the current state of the settings and loads it if it is not loaded yet.
+     *
+     * @return current snapshot
+     * @throws IllegalStateException if the settings could not be loaded
+     */
+    public SettingsSnapshot snapshot() {
+        var snapshot = this.snapshot.get();
+        if (snapshot != null) return snapshot;
+        load();
+        snapshot = this.snapshot.get();
+        if (snapshot == null) {
+            throw new IllegalStateException("Settings of " + prettyName(guild()) + " could not be loaded");
+        }
+        return snapshot;
+    }
+
+    /**
+     * Replaces the current snapshot with an updated snapshot.
+     * <p>
+     * The update may be applied more than once when the snapshot is changed concurrently and should not have side
+     * effects. Nothing is updated if the settings could not be loaded. The change is part of the settings once they
+     * are loaded from the database.
+     *
+     * @param update function which creates the new snapshot from the current one
+     */
+    public void update(UnaryOperator<SettingsSnapshot> update) {
+        load();
+        snapshot.updateAndGet(current -> current == null ? null : update.apply(current));
+    }
+
+    /**
+     * Loads all settings of the guild with a single query, if they are not loaded yet.
+     * <p>
+     * The settings stay unloaded if they could not be loaded. The load is not retried before the retry delay passed.
+     */
+    public void load() {
+        if (snapshot.get() != null) return;
+        synchronized (this) {
+            if (snapshot.get() != null) return;
+            if (System.currentTimeMillis() < retryAt) return;
+            new SettingsLoader(this).load(List.of(this));
+            if (snapshot.get() != null) {
+                failures = 0;
+                return;
+            }
+            // the error was logged by the query. Do not retry the load on every access.
+            retryAt = System.currentTimeMillis() + Math.min(MAX_RETRY_DELAY, RETRY_DELAY << Math.min(failures, 6));
+            failures++;
+        }
+    }
+
+    /**
+     * Checks whether the settings were loaded already.
+     *
+     * @return true if loaded
+     */
+    public boolean isLoaded() {
+        return snapshot.get() != null;
+    }
+
+    /**
+     * Creates the snapshot from a row of the {@link SettingsLoader}.
+     * <p>
+     * The snapshot is only used if the settings are not loaded yet, to not revert changes made after the row was read.
+     *
+     * @param row row of the guild
+     * @throws SQLException if the row can not be read
+     */
+    void apply(ResultSet row) throws SQLException {
+        var hasThankSettings = row.getBoolean("has_thank_settings");
+        var rankRoles = (Long[]) row.getArray("rank_roles").getArray();
+        var rankReputations = (Long[]) row.getArray("rank_reputations").getArray();
+        List<ReputationRank> ranks = new ArrayList<>();
+        for (var i = 0; i < rankRoles.length; i++) {
+            ranks.add(new ReputationRank(this.ranks, rankRoles[i], rankReputations[i]));
+        }
+        snapshot.compareAndSet(null, new SettingsSnapshot(
+                row.getBoolean("has_abuse_protection") ? AbuseProtection.build(this, row) : new AbuseProtection(this),
+                row.getBoolean("has_announcements") ? Announcements.build(this, row) : new Announcements(this),
+                row.getBoolean("has_reputation_settings") ? Reputation.build(this, row) : new Reputation(this),
+                row.getBoolean("has_guild_settings") ? General.build(this, row) : new General(this),
+                row.getBoolean("has_message_states") ? Messages.build(this, row) : new Messages(this),
+                hasThankSettings ? row.getString("reaction") : Thanking.DEFAULT_REACTION,
+                !hasThankSettings || row.getBoolean("channel_whitelist"),
+                SettingsLoader.longs(row, "channels"),
+                SettingsLoader.longs(row, "categories"),
+                SettingsLoader.longs(row, "donor_roles"),
+                SettingsLoader.longs(row, "receiver_roles"),
+                SettingsLoader.strings(row, "reactions"),
+                SettingsLoader.strings(row, "thankwords"),
+                ranks));
+    }
+
     public RepGuild repGuild() {
         return repGuild;
     }
@@ -0,0 +1,129 @@
+package de.chojo.repbot.dao.access.guild.settings;
+
+import de.chojo.sqlutil.base.QueryFactoryHolder;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Loads the complete settings of one or more guilds with a single query.
+ * <p>
+ * Every guild is one row. The single row settings are joined and the channels, roles, reactions, thankwords and ranks
+ * are read as arrays.
+ */
+public class SettingsLoader extends QueryFactoryHolder {
+    public SettingsLoader(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    public SettingsLoader(QueryFactoryHolder holder) {
+        super(holder);
+    }
+
+    /**
+     * Loads the settings of all guilds with one query.
+     *
+     * @param settings settings to load
+     */
+    public void load(Collection<Settings> settings) {
+        if (settings.isEmpty()) return;
+        var byGuild = settings.stream().collect(Collectors.toMap(Settings::guildId, Function.identity(), (a, b) -> a));
+        var ids = List.copyOf(byGuild.keySet());
+        builder(Boolean.class)
+                .query("""
+                        SELECT
+                            g.guild_id,
+                            ap.guild_id IS NOT NULL AS has_abuse_protection,
+                            ap.min_messages,
+                            ap.max_message_age,
+                            ap.receiver_context,
+                            ap.donor_context,
+                            ap.cooldown,
+                            ap.max_given,
+                            ap.max_given_hours,
+                            ap.max_received,
+                            ap.max_received_hours,
+                            ap.max_message_reputation,
+                            a.guild_id IS NOT NULL AS has_announcements,
+                            a.active,
+                            a.same_channel,
+                            a.channel_id,
+                            rs.guild_id IS NOT NULL AS has_reputation_settings,
+                            rs.reactions_active,
+                            rs.answer_active,
+                            rs.mention_active,
+                            rs.fuzzy_active,
+                            rs.embed_active,
+                            rs.skip_single_embed,
+                            gs.guild_id IS NOT NULL AS has_guild_settings,
+                            gs.language,
+                            gs.emoji_debug,
+                            gs.stack_roles,
+                            gs.reputation_mode,
+                            ts.guild_id IS NOT NULL AS has_thank_settings,
+                            ts.reaction,
+                            ts.channel_whitelist,
+                            ms.guild_id IS NOT NULL AS has_message_states,
+                            ms.reaction_confirmation,
+                            ARRAY(SELECT c.channel_id FROM active_channel c WHERE c.guild_id = g.guild_id) AS channels,
+                            ARRAY(SELECT c.category_id FROM active_categories c WHERE c.guild_id = g.guild_id) AS categories,
+                            ARRAY(SELECT r.role_id FROM donor_roles r WHERE r.guild_id = g.guild_id) AS donor_roles,
+                            ARRAY(SELECT r.role_id FROM receiver_roles r WHERE r.guild_id = g.guild_id) AS receiver_roles,
+                            ARRAY(SELECT r.reaction FROM guild_reactions r WHERE r.guild_id = g.guild_id) AS reactions,
+                            ARRAY(SELECT t.thankword FROM thankwords t WHERE t.guild_id = g.guild_id) AS thankwords,
+                            ARRAY(SELECT r.role_id FROM guild_ranks r WHERE r.guild_id = g.guild_id ORDER BY r.reputation) AS rank_roles,
+                            ARRAY(SELECT r.reputation FROM guild_ranks r WHERE r.guild_id = g.guild_id ORDER BY r.reputation) AS rank_reputations
+                        FROM
+                            (VALUES %s) g(guild_id)
+                            LEFT JOIN abuse_protection ap ON ap.guild_id = g.guild_id
+                            LEFT JOIN announcements a ON a.guild_id = g.guild_id
+                            LEFT JOIN reputation_settings rs ON rs.guild_id = g.guild_id
+                            LEFT JOIN guild_settings gs ON gs.guild_id = g.guild_id
+                            LEFT JOIN thank_settings ts ON ts.guild_id = g.guild_id
+                            LEFT JOIN message_states ms ON ms.guild_id = g.guild_id;
+                        """, String.join(",", Collections.nCopies(ids.size(), "(?::BIGINT)")))
+                .paramsBuilder(stmt -> {
+                    for (var id : ids) {
+                        stmt.setLong(id);
+                    }
+                })
+                .readRow(rs -> {
+                    byGuild.get(rs.getLong("guild_id")).apply(rs);
+                    return true;
+                })
+                .allSync();
+    }
+
+    /**
+     * Reads a bigint array column of a settings row.
+     *
+     * @param row    row
+     * @param column column
+     * @return values of the array
+     * @throws SQLException if the column can not be read
+     */
+    public static Set<Long> longs(ResultSet row, String column) throws SQLException {
+        return new HashSet<>(Arrays.asList((Long[]) row.getArray(column).getArray()));
+    }
+
+    /**
+     * Reads a text array column of a settings row.
+     *
+     * @param row    row
+     * @param column column
+     * @return values of the array
+     * @throws SQLException if the column can not be read
+     */
+    public static Set<String> strings(ResultSet row, String column) throws SQLException {
+        return new HashSet<>(Arrays.asList((String[]) row.getArray(column).getArray()));
+    }
+}
@@ -0,0 +1,123 @@
+package de.chojo.repbot.dao.access.guild.settings;
+
+import de.chojo.repbot.dao.access.guild.settings.sub.AbuseProtection;
+import de.chojo.repbot.dao.access.guild.settings.sub.General;
+import de.chojo.repbot.dao.access.guild.settings.sub.Messages;
+import de.chojo.repbot.dao.access.guild.settings.sub.Reputation;
+import de.chojo.repbot.dao.pagination.Announcements;
+import de.chojo.repbot.dao.snapshots.ReputationRank;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable state of the settings of a guild.
+ * <p>
+ * The thanking settings and ranks of a snapshot are never changed. Changes of them create a new snapshot which replaces
+ * the current one in {@link Settings}. The collections of a snapshot are unmodifiable and the ranks are sorted from the
+ * highest to the lowest reputation. The abuse protection, announcement, reputation, general and message settings are
+ * shared between snapshots and are changed in place.
+ *
+ * @param abuseProtection  abuse protection settings
+ * @param announcements    announcement settings
+ * @param reputation       reputation settings
+ * @param general          general settings
+ * @param messages         message settings
+ * @param mainReaction     main reaction to give reputation
+ * @param channelWhitelist true if the channels are a whitelist
+ * @param channels         ids of the reputation channels
+ * @param categories       ids of the reputation categories
+ * @param donorRoles       ids of the donor roles
+ * @param receiverRoles    ids of the receiver roles
+ * @param reactions        additional reactions to give reputation
+ * @param thankwords       thankwords
+ * @param ranks            reputation ranks
+ */
+public record SettingsSnapshot(AbuseProtection abuseProtection, Announcements announcements, Reputation reputation,
+                               General general, Messages messages, String mainReaction, boolean channelWhitelist,
+                               Set<Long> channels, Set<Long> categories, Set<Long> donorRoles, Set<Long> receiverRoles,
+                               Set<String> reactions, Set<String> thankwords, List<ReputationRank> ranks) {
+    public SettingsSnapshot {
+        channels = Set.copyOf(channels);
+        categories = Set.copyOf(categories);
+        donorRoles = Set.copyOf(donorRoles);
+        receiverRoles = Set.copyOf(receiverRoles);
+        reactions = Set.copyOf(reactions);
+        thankwords = Set.copyOf(thankwords);
+        ranks = ranks.stream().sorted().toList();
+    }
+
+    public SettingsSnapshot withMainReaction(String mainReaction) {
+        return new SettingsSnapshot(abuseProtection, announcements, reputation, general, messages, mainReaction,
+                channelWhitelist, channels, categories, donorRoles, receiverRoles, reactions, thankwords, ranks);
+    }
+
+    public SettingsSnapshot withChannelWhitelist(boolean channelWhitelist) {
+        return new SettingsSnapshot(abuseProtection, announcements, reputation, general, messages, mainReaction,
+                channelWhitelist, channels, categories, donorRoles, receiverRoles, reactions, thankwords, ranks);
+    }
+
+    public SettingsSnapshot withChannels(Set<Long> channels) {
+        return new SettingsSnapshot(abuseProtection, announcements, reputation, general, messages, mainReaction,
+                channelWhitelist, channels, categories, donorRoles, receiverRoles, reactions, thankwords, ranks);
+    }
+
+    public SettingsSnapshot withCategories(Set<Long> categories) {
+        return new SettingsSnapshot(abuseProtection, announcements, reputation, general, messages, mainReaction,
+                channelWhitelist, channels, categories, donorRoles, receiverRoles, reactions, thankwords, ranks);
+    }
+
+    public SettingsSnapshot withDonorRoles(Set<Long> donorRoles) {
+        return new SettingsSnapshot(abuseProtection, announcements, reputation, general, messages, mainReaction,
+                channelWhitelist, channels, categories, donorRoles, receiverRoles, reactions, thankwords, ranks);
+    }
+
+    public SettingsSnapshot withReceiverRoles(Set<Long> receiverRoles) {
+        return new SettingsSnapshot(abuseProtection, announcements, reputation, general, messages, mainReaction,
+                channelWhitelist, channels, categories, donorRoles, receiverRoles, reactions, thankwords, ranks);
+    }
+
+    public SettingsSnapshot withReactions(Set<String> reactions) {
+        return new SettingsSnapshot(abuseProtection, announcements, reputation, general, messages, mainReaction,
+                channelWhitelist, channels, categories, donorRoles, receiverRoles, reactions, thankwords, ranks);
+    }
+
+    public SettingsSnapshot withThankwords(Set<String> thankwords) {
+        return new SettingsSnapshot(abuseProtection, announcements, reputation, general, messages, mainReaction,
+                channelWhitelist, channels, categories, donorRoles, receiverRoles, reactions, thankwords, ranks);
+    }
+
+    public SettingsSnapshot withRanks(List<ReputationRank> ranks) {
+        return new SettingsSnapshot(abuseProtection, announcements, reputation, general, messages, mainReaction,
+                channelWhitelist, channels, categories, donorRoles, receiverRoles, reactions, thankwords, ranks);
+    }
+
+    /**
+     * Creates a copy of the set with the value added.
+     *
+     * @param set   set
+     * @param value value to add
+     * @param <T>   type of the values
+     * @return new set
+     */
+    public static <T> Set<T> added(Set<T> set, T value) {
+        var copy = new HashSet<>(set);
+        copy.add(value);
+        return copy;
+    }
+
+    /**
+     * Creates a copy of the set with the value removed.
+     *
+     * @param set   set
+     * @param value value to remove
+     * @param <T>   type of the values
+     * @return new set
+     */
+    public static <T> Set<T> removed(Set<T> set, T value) {
+        var copy = new HashSet<>(set);
+        copy.remove(value);
+        return copy;
+    }
+}
@@ -9,24 +9,16 @@ import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Role;
 
 import java.util.Comparator;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 public class Ranks extends QueryFactoryHolder implements GuildHolder {
-    private final LinkedHashSet<ReputationRank> ranks = new LinkedHashSet<>();
     private final Settings settings;
-    private final AtomicBoolean stackRoles;
 
-    public Ranks(Settings settings, AtomicBoolean stackRoles) {
+    public Ranks(Settings settings) {
         super(settings);
         this.settings = settings;
-        this.stackRoles = stackRoles;
-    }
-
-    public static Ranks build(Settings settings, AtomicBoolean stackRoles) {
-        return new Ranks(settings, stackRoles);
     }
 
     /**
@@ -60,8 +52,10 @@ public class Ranks extends QueryFactoryHolder implements GuildHolder {
                              .paramsBuilder(stmt -> stmt.setLong(guildId()).setLong(role.getIdLong()).setLong(reputation))
                              .update().executeSync() > 0;
         if (result) {
-            ranks.removeIf(r -> r.roleId() == role.getIdLong() || reputation == r.reputation());
-            ranks.add(new ReputationRank(this, role.getIdLong(), reputation));
+            var rank = new ReputationRank(this, role.getIdLong(), reputation);
+            settings.update(s -> s.withRanks(Stream.concat(
+                    s.ranks().stream().filter(r -> r.roleId() != role.getIdLong() && r.reputation() != reputation),
+                    Stream.of(rank)).toList()));
         }
         return result;
     }
@@ -79,30 +73,18 @@ public class Ranks extends QueryFactoryHolder implements GuildHolder {
                              .update()
                              .executeSync() > 0;
         if (result) {
-            ranks.removeIf(r -> r.roleId() == role.getIdLong());
+            settings.update(s -> s.withRanks(s.ranks().stream().filter(r -> r.roleId() != role.getIdLong()).toList()));
         }
         return result;
     }
 
+    /**
+     * Gets all reputation ranks sorted from the highest to the lowest reputation.
+     *
+     * @return unmodifiable list of ranks
+     */
     public List<ReputationRank> ranks() {
-        if (!ranks.isEmpty()) {
-            return ranks.stream().sorted().toList();
-        }
-        var ranks = builder(ReputationRank.class)
-                .query("""
-                        SELECT
-                            role_id,
-                            reputation
-                        FROM
-                            guild_ranks
-                        WHERE guild_id = ?
-                        ORDER BY reputation;
-                        """)
-                .paramsBuilder(stmt -> stmt.setLong(guildId()))
-                .readRow(r -> ReputationRank.build(this, r))
-                .allSync();
-        this.ranks.addAll(ranks);
-        return this.ranks.stream().sorted().toList();
+        return settings.snapshot().ranks();
     }
 
     /**
@@ -116,19 +98,30 @@ public class Ranks extends QueryFactoryHolder implements GuildHolder {
      * @return list of ranks
      */
     public List<ReputationRank> currentRanks(RepUser user) {
-        var profile = user.profile();
+        return currentRanks(user.profile().reputation());
+    }
+
+    /**
+     * Gets all reputation ranks which should be assigned to a user with this amount of reputation.
+     *
+     * @param reputation reputation of the user
+     * @return list of ranks
+     * @see #currentRanks(RepUser)
+     */
+    public List<ReputationRank> currentRanks(long reputation) {
         return ranks().stream()
-                .filter(rank -> rank.reputation() <= profile.reputation())
-                .sorted()
-                .limit(stackRoles.get() ? Integer.MAX_VALUE : 1)
+                .filter(rank -> rank.reputation() <= reputation)
+                .limit(settings.general().isStackRoles() ? Integer.MAX_VALUE : 1)
                 .toList();
     }
 
     public Optional<ReputationRank> currentRank(RepUser user) {
-        var profile = user.profile();
+        return currentRank(user.profile().reputation());
+    }
+
+    public Optional<ReputationRank> currentRank(long reputation) {
         return ranks().stream()
-                .filter(rank -> rank.reputation() <= profile.reputation())
-                .sorted()
+                .filter(rank -> rank.reputation() <= reputation)
                 .limit(1)
                 .findFirst();
     }
@@ -1,20 +1,22 @@
 package de.chojo.repbot.dao.access.guild.settings.sub;
 
 public enum ReputationMode {
-    TOTAL("user_reputation","reputationMode.total", true, false),
-    ROLLING_WEEK("user_reputation_week", "reputationMode.rollingWeek", false, true),
-    ROLLING_MONTH("user_reputation_month", "reputationMode.rollingMonth", false, true);
+    TOTAL("user_reputation","reputationMode.total", true, false, 0),
+    ROLLING_WEEK("user_reputation_week", "reputationMode.rollingWeek", false, true, 7),
+    ROLLING_MONTH("user_reputation_month", "reputationMode.rollingMonth", false, true, 28);
 
     private final String tableName;
     private final String localizedName;
     private final boolean supportsOffset;
     private final boolean autoRefresh;
+    private final int days;
 
-    ReputationMode(String tableName, String localeCode, boolean supportsOffset, boolean autoRefresh) {
+    ReputationMode(String tableName, String localeCode, boolean supportsOffset, boolean autoRefresh, int days) {
         this.tableName = tableName;
         this.localizedName = localeCode;
         this.supportsOffset = supportsOffset;
         this.autoRefresh = autoRefresh;
+        this.days = days;
     }
 
     public String tableName() {
@@ -29,6 +31,16 @@ public enum ReputationMode {
         return autoRefresh;
     }
 
+    /**
+     * Amount of full days before the current day which are part of a rolling mode. The current day is always part of
+     * a rolling mode.
+     *
+     * @return amount of days or 0 if the mode is not rolling
+     */
+    public int days() {
+        return days;
+    }
+
     public String localeCode() {
         return localizedName;
     }
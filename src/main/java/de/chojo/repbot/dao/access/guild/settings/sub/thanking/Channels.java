@@ -1,6 +1,7 @@
 package de.chojo.repbot.dao.access.guild.settings.sub.thanking;
 
 import de.chojo.jdautil.parsing.DiscordResolver;
+import de.chojo.repbot.dao.access.guild.settings.SettingsSnapshot;
 import de.chojo.repbot.dao.access.guild.settings.sub.Thanking;
 import de.chojo.repbot.dao.components.GuildHolder;
 import de.chojo.sqlutil.base.QueryFactoryHolder;
@@ -28,16 +29,10 @@ public class Channels extends QueryFactoryHolder implements GuildHolder {
     private static final Logger log = getLogger(Channels.class);
 
     private final Thanking thanking;
-    private final Set<Long> channels;
-    private final Set<Long> categories;
-    private boolean whitelist;
 
-    public Channels(Thanking thanking, boolean whitelist, Set<Long> channels, Set<Long> categories) {
+    public Channels(Thanking thanking) {
         super(thanking);
         this.thanking = thanking;
-        this.whitelist = whitelist;
-        this.channels = channels;
-        this.categories = categories;
     }
 
     @Override
@@ -67,36 +62,38 @@ public class Channels extends QueryFactoryHolder implements GuildHolder {
     }
 
     public boolean isEnabledByChannel(Channel channel) {
-        if (isWhitelist()) {
-            return channels.contains(channel.getIdLong());
+        var snapshot = snapshot();
+        if (snapshot.channelWhitelist()) {
+            return snapshot.channels().contains(channel.getIdLong());
         }
-        return !channels.contains(channel.getIdLong());
+        return !snapshot.channels().contains(channel.getIdLong());
     }
 
     public boolean isEnabledByCategory(@Nullable Category category) {
         if (category == null) return false;
-        if (isWhitelist()) {
-            return categories.contains(category.getIdLong());
+        var snapshot = snapshot();
+        if (snapshot.channelWhitelist()) {
+            return snapshot.categories().contains(category.getIdLong());
         }
-        return !categories.contains(category.getIdLong());
+        return !snapshot.categories().contains(category.getIdLong());
     }
 
     public List<TextChannel> channels() {
-        return DiscordResolver.getValidTextChannelsById(guild(), new ArrayList<>(channels));
+        return DiscordResolver.getValidTextChannelsById(guild(), new ArrayList<>(channelIds()));
     }
 
     public List<Category> categories() {
-        return categories.stream().map(guild()::getCategoryById)
+        return snapshot().categories().stream().map(guild()::getCategoryById)
                 .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
     public Set<Long> channelIds() {
-        return channels;
+        return snapshot().channels();
     }
 
     public boolean isWhitelist() {
-        return whitelist;
+        return snapshot().channelWhitelist();
     }
 
     /**
@@ -112,7 +109,7 @@ public class Channels extends QueryFactoryHolder implements GuildHolder {
                              .update()
                              .executeSync() > 0;
         if (result) {
-            channels.add(channel.getIdLong());
+            thanking.settings().update(s -> s.withChannels(SettingsSnapshot.added(s.channels(), channel.getIdLong())));
         }
         return result;
     }
@@ -130,7 +127,7 @@ public class Channels extends QueryFactoryHolder implements GuildHolder {
                              .update()
                              .executeSync() > 0;
         if (result) {
-            categories.add(category.getIdLong());
+            thanking.settings().update(s -> s.withCategories(SettingsSnapshot.added(s.categories(), category.getIdLong())));
         }
         return result;
     }
@@ -148,7 +145,7 @@ public class Channels extends QueryFactoryHolder implements GuildHolder {
                              .update()
                              .executeSync() > 0;
         if (result) {
-            channels.remove(channel.getIdLong());
+            thanking.settings().update(s -> s.withChannels(SettingsSnapshot.removed(s.channels(), channel.getIdLong())));
         }
         return result;
     }
@@ -166,7 +163,7 @@ public class Channels extends QueryFactoryHolder implements GuildHolder {
                              .update()
                              .executeSync() > 0;
         if (result) {
-            categories.remove(category.getIdLong());
+            thanking.settings().update(s -> s.withCategories(SettingsSnapshot.removed(s.categories(), category.getIdLong())));
         }
         return result;
     }
@@ -183,7 +180,7 @@ public class Channels extends QueryFactoryHolder implements GuildHolder {
                 .update()
                 .executeSync();
         if (result > 0) {
-            channels.clear();
+            thanking.settings().update(s -> s.withChannels(Set.of()));
         }
         return result;
     }
@@ -200,7 +197,7 @@ public class Channels extends QueryFactoryHolder implements GuildHolder {
                 .update()
                 .executeSync();
         if (result > 0) {
-            categories.clear();
+            thanking.settings().update(s -> s.withCategories(Set.of()));
         }
         return result;
     }
@@ -216,8 +213,12 @@ public class Channels extends QueryFactoryHolder implements GuildHolder {
                              .update()
                              .executeSync() > 0;
         if (result) {
-            this.whitelist = whitelist;
+            thanking.settings().update(s -> s.withChannelWhitelist(whitelist));
         }
-        return this.whitelist;
+        return isWhitelist();
+    }
+
+    private SettingsSnapshot snapshot() {
+        return thanking.settings().snapshot();
     }
 }
@@ -1,5 +1,6 @@
 package de.chojo.repbot.dao.access.guild.settings.sub.thanking;
 
+import de.chojo.repbot.dao.access.guild.settings.SettingsSnapshot;
 import de.chojo.repbot.dao.access.guild.settings.sub.Thanking;
 import net.dv8tion.jda.api.entities.Guild;
 
@@ -8,8 +9,8 @@ import java.util.Set;
 public class DonorRoles extends RolesHolder {
     private final Thanking thanking;
 
-    public DonorRoles(Thanking thanking, Set<Long> roleIds) {
-        super(thanking, roleIds);
+    public DonorRoles(Thanking thanking) {
+        super(thanking);
         this.thanking = thanking;
     }
 
@@ -22,4 +23,14 @@ public class DonorRoles extends RolesHolder {
     protected String targetTable() {
         return "donor_roles";
     }
+
+    @Override
+    protected Set<Long> roleIds(SettingsSnapshot snapshot) {
+        return snapshot.donorRoles();
+    }
+
+    @Override
+    protected SettingsSnapshot withRoleIds(SettingsSnapshot snapshot, Set<Long> roleIds) {
+        return snapshot.withDonorRoles(roleIds);
+    }
 }
@@ -1,6 +1,7 @@
 package de.chojo.repbot.dao.access.guild.settings.sub.thanking;
 
 import de.chojo.jdautil.parsing.Verifier;
+import de.chojo.repbot.dao.access.guild.settings.SettingsSnapshot;
 import de.chojo.repbot.dao.access.guild.settings.sub.Thanking;
 import de.chojo.repbot.dao.components.GuildHolder;
 import de.chojo.sqlutil.base.QueryFactoryHolder;
@@ -17,14 +18,10 @@ import java.util.stream.Collectors;
 
 public class Reactions extends QueryFactoryHolder implements GuildHolder {
     private final Thanking thanking;
-    private final Set<String> reactions;
-    private String mainReaction;
 
-    public Reactions(Thanking thanking, String mainReaction, Set<String> reactions) {
+    public Reactions(Thanking thanking) {
         super(thanking);
         this.thanking = thanking;
-        this.mainReaction = mainReaction;
-        this.reactions = reactions;
     }
 
     @Override
@@ -43,10 +40,11 @@ public class Reactions extends QueryFactoryHolder implements GuildHolder {
     }
 
     private boolean isReaction(String reaction) {
-        if (mainReaction.equals(reaction)) {
+        var snapshot = thanking.settings().snapshot();
+        if (snapshot.mainReaction().equals(reaction)) {
             return true;
         }
-        return reactions.contains(reaction);
+        return snapshot.reactions().contains(reaction);
     }
 
     public boolean reactionIsEmote() {
@@ -61,11 +59,11 @@ public class Reactions extends QueryFactoryHolder implements GuildHolder {
     }
 
     public String mainReaction() {
-        return mainReaction;
+        return thanking.settings().snapshot().mainReaction();
     }
 
     public List<String> getAdditionalReactionMentions() {
-        return reactions.stream()
+        return reactions().stream()
                 .map(reaction -> {
                     if (Verifier.isValidId(reaction)) {
                         var asMention = guild().retrieveEmojiById(reaction).onErrorFlatMap(err -> null).complete();
@@ -87,7 +85,7 @@ public class Reactions extends QueryFactoryHolder implements GuildHolder {
                              .update()
                              .executeSync() > 0;
         if (result) {
-            reactions.add(reaction);
+            thanking.settings().update(s -> s.withReactions(SettingsSnapshot.added(s.reactions(), reaction)));
         }
         return result;
     }
@@ -100,7 +98,7 @@ public class Reactions extends QueryFactoryHolder implements GuildHolder {
                              .update()
                              .executeSync() > 0;
         if (result) {
-            reactions.remove(reaction);
+            thanking.settings().update(s -> s.withReactions(SettingsSnapshot.removed(s.reactions(), reaction)));
         }
 
         return result;
@@ -117,12 +115,12 @@ public class Reactions extends QueryFactoryHolder implements GuildHolder {
                              .update()
                              .executeSync() > 0;
         if (result) {
-            mainReaction = reaction;
+            thanking.settings().update(s -> s.withMainReaction(reaction));
         }
         return result;
     }
 
     public Set<String> reactions() {
-        return reactions;
+        return thanking.settings().snapshot().reactions();
     }
 }
@@ -1,5 +1,6 @@
 package de.chojo.repbot.dao.access.guild.settings.sub.thanking;
 
+import de.chojo.repbot.dao.access.guild.settings.SettingsSnapshot;
 import de.chojo.repbot.dao.access.guild.settings.sub.Thanking;
 import net.dv8tion.jda.api.entities.Guild;
 
@@ -8,8 +9,8 @@ import java.util.Set;
 public class ReceiverRoles extends RolesHolder {
     private final Thanking thanking;
 
-    public ReceiverRoles(Thanking thanking, Set<Long> roleIds) {
-        super(thanking, roleIds);
+    public ReceiverRoles(Thanking thanking) {
+        super(thanking);
         this.thanking = thanking;
     }
 
@@ -22,4 +23,14 @@ public class ReceiverRoles extends RolesHolder {
     protected String targetTable() {
         return "receiver_roles";
     }
+
+    @Override
+    protected Set<Long> roleIds(SettingsSnapshot snapshot) {
+        return snapshot.receiverRoles();
+    }
+
+    @Override
+    protected SettingsSnapshot withRoleIds(SettingsSnapshot snapshot, Set<Long> roleIds) {
+        return snapshot.withReceiverRoles(roleIds);
+    }
 }
@@ -1,5 +1,6 @@
 package de.chojo.repbot.dao.access.guild.settings.sub.thanking;
 
+import de.chojo.repbot.dao.access.guild.settings.SettingsSnapshot;
 import de.chojo.repbot.dao.access.guild.settings.sub.Thanking;
 import de.chojo.repbot.dao.components.GuildHolder;
 import de.chojo.sqlutil.base.QueryFactoryHolder;
@@ -13,17 +14,16 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 public abstract class RolesHolder extends QueryFactoryHolder implements GuildHolder {
-    protected final Set<Long> roleIds;
     protected final Thanking thanking;
 
-    public RolesHolder(Thanking thanking, Set<Long> roleIds) {
+    public RolesHolder(Thanking thanking) {
         super(thanking);
         this.thanking = thanking;
-        this.roleIds = roleIds;
     }
 
     public boolean hasRole(@Nullable Member member) {
         if (member == null) return false;
+        var roleIds = roleIds();
         if (roleIds.isEmpty()) return true;
         for (var role : member.getRoles()) {
             if (roleIds.contains(role.getIdLong())) return true;
@@ -32,7 +32,7 @@ public abstract class RolesHolder extends QueryFactoryHolder implements GuildHol
     }
 
     public Set<Role> roles() {
-        return roleIds.stream().map(guild()::getRoleById).filter(Objects::nonNull).collect(Collectors.toSet());
+        return roleIds().stream().map(guild()::getRoleById).filter(Objects::nonNull).collect(Collectors.toSet());
     }
 
     @Override
@@ -40,15 +40,36 @@ public abstract class RolesHolder extends QueryFactoryHolder implements GuildHol
         return thanking.guild();
     }
 
+    public Set<Long> roleIds() {
+        return roleIds(thanking.settings().snapshot());
+    }
+
     protected abstract String targetTable();
 
+    /**
+     * Gets the role ids of this holder from the snapshot.
+     *
+     * @param snapshot snapshot
+     * @return role ids
+     */
+    protected abstract Set<Long> roleIds(SettingsSnapshot snapshot);
+
+    /**
+     * Creates a copy of the snapshot with the role ids of this holder replaced.
+     *
+     * @param snapshot snapshot
+     * @param roleIds  new role ids
+     * @return new snapshot
+     */
+    protected abstract SettingsSnapshot withRoleIds(SettingsSnapshot snapshot, Set<Long> roleIds);
+
     public boolean add(Role role) {
         var result = builder().query("INSERT INTO %s(guild_id, role_id) VALUES (?,?) ON CONFLICT(guild_id, role_id) DO NOTHING", targetTable())
                              .paramsBuilder(stmt -> stmt.setLong(guildId()).setLong(role.getIdLong()))
                              .update()
                              .executeSync() > 0;
         if (result) {
-            roleIds.add(role.getIdLong());
+            thanking.settings().update(s -> withRoleIds(s, SettingsSnapshot.added(roleIds(s), role.getIdLong())));
         }
         return result;
     }
@@ -59,7 +80,7 @@ public abstract class RolesHolder extends QueryFactoryHolder implements GuildHol
                              .update()
                              .executeSync() > 0;
         if (result) {
-            roleIds.remove(role.getIdLong());
+            thanking.settings().update(s -> withRoleIds(s, SettingsSnapshot.removed(roleIds(s), role.getIdLong())));
         }
         return result;
     }
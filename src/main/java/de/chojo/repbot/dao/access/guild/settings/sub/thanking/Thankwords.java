@@ -1,26 +1,21 @@
 package de.chojo.repbot.dao.access.guild.settings.sub.thanking;
 
+import de.chojo.repbot.analyzer.matching.ThankwordMatcher;
+import de.chojo.repbot.dao.access.guild.settings.SettingsSnapshot;
 import de.chojo.repbot.dao.access.guild.settings.sub.Thanking;
 import de.chojo.repbot.dao.components.GuildHolder;
 import de.chojo.sqlutil.base.QueryFactoryHolder;
 import net.dv8tion.jda.api.entities.Guild;
 
 import java.util.Set;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 public class Thankwords extends QueryFactoryHolder implements GuildHolder {
-    private static final String THANKWORD = "((?:^|\\b)%s(?:$|\\b))";
-    private static final String PATTERN = "(?i)(%s)";
-
     private final Thanking thanking;
+    private volatile Compiled compiled;
 
-    private final Set<String> thankwords;
-
-    public Thankwords(Thanking thanking, Set<String> thankwords) {
+    public Thankwords(Thanking thanking) {
         super(thanking);
         this.thanking = thanking;
-        this.thankwords = thankwords;
     }
 
     @Override
@@ -29,16 +24,25 @@ public class Thankwords extends QueryFactoryHolder implements GuildHolder {
     }
 
     public Set<String> words() {
-        return thankwords;
+        return thanking.settings().snapshot().thankwords();
     }
 
-    public Pattern thankwordPattern() {
-        if (thankwords.isEmpty()) return Pattern.compile("");
-        var twPattern = thankwords.stream()
-                .map(t -> String.format(THANKWORD, t))
-                .collect(Collectors.joining("|"));
-        return Pattern.compile(String.format(PATTERN, twPattern),
-                Pattern.CASE_INSENSITIVE + Pattern.MULTILINE + Pattern.DOTALL + Pattern.COMMENTS);
+    /**
+     * Get the compiled matcher for the thankwords.
+     * <p>
+     * The matcher is compiled once and reused until the thankwords are changed.
+     *
+     * @return thankword matcher
+     */
+    public ThankwordMatcher matcher() {
+        var thankwords = words();
+        var compiled = this.compiled;
+        // every change creates a new set of thankwords
+        if (compiled == null || compiled.thankwords() != thankwords) {
+            compiled = new Compiled(thankwords, ThankwordMatcher.compile(thankwords));
+            this.compiled = compiled;
+        }
+        return compiled.matcher();
     }
 
     public boolean add(String pattern) {
@@ -53,7 +57,7 @@ public class Thankwords extends QueryFactoryHolder implements GuildHolder {
                              .update()
                              .executeSync() > 0;
         if (result) {
-            thankwords.add(pattern);
+            thanking.settings().update(s -> s.withThankwords(SettingsSnapshot.added(s.thankwords(), pattern)));
         }
         return result;
     }
@@ -71,8 +75,11 @@ public class Thankwords extends QueryFactoryHolder implements GuildHolder {
                              .update()
                              .executeSync() > 0;
         if (result) {
-            thankwords.remove(pattern);
+            thanking.settings().update(s -> s.withThankwords(SettingsSnapshot.removed(s.thankwords(), pattern)));
         }
         return result;
     }
+
+    private record Compiled(Set<String> thankwords, ThankwordMatcher matcher) {
+    }
 }
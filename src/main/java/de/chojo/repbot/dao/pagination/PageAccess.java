@@ -1,14 +1,40 @@
 package de.chojo.repbot.dao.pagination;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+/**
+ * Access to the pages of a sorted list.
+ * <p>
+ * The last entry of every fetched page is kept. It is passed to the page supplier when the following page is
+ * requested and can be used as a cursor to seek the page instead of skipping all previous entries.
+ * <p>
+ * The page count is computed once and cached for the lifetime of the page access.
+ *
+ * @param <T> type of the entries
+ */
 public class PageAccess<T> {
     private final Supplier<Integer> pagecount;
-    private final Function<Integer, List<T>> pageSupplier;
+    private final BiFunction<Integer, T, List<T>> pageSupplier;
+    private final Map<Integer, T> lastEntries = new HashMap<>();
+    private Integer pages;
 
     public PageAccess(Supplier<Integer> pagecount, Function<Integer, List<T>> pageSupplier) {
+        this(pagecount, (page, previous) -> pageSupplier.apply(page));
+    }
+
+    /**
+     * Creates a new page access.
+     *
+     * @param pagecount    supplier of the page count
+     * @param pageSupplier supplier of a page. Receives the zero based page and the last entry of the previous page, if
+     *                     the previous page was fetched before.
+     */
+    public PageAccess(Supplier<Integer> pagecount, BiFunction<Integer, T, List<T>> pageSupplier) {
         this.pagecount = pagecount;
         this.pageSupplier = pageSupplier;
     }
@@ -18,8 +44,9 @@ public class PageAccess<T> {
      *
      * @return page amount
      */
-    public int pages() {
-        return pagecount.get();
+    public synchronized int pages() {
+        if (pages == null) pages = pagecount.get();
+        return pages;
     }
 
     /**
@@ -29,6 +56,16 @@ public class PageAccess<T> {
      * @return a list containing all entries for the page
      */
     public List<T> page(int page) {
-        return pageSupplier.apply(page);
+        T previous;
+        synchronized (this) {
+            previous = lastEntries.get(page - 1);
+        }
+        var entries = pageSupplier.apply(page, previous);
+        if (!entries.isEmpty()) {
+            synchronized (this) {
+                lastEntries.put(page, entries.get(entries.size() - 1));
+            }
+        }
+        return entries;
     }
 }
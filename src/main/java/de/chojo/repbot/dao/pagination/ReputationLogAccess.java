@@ -3,11 +3,11 @@ package de.chojo.repbot.dao.pagination;
 import de.chojo.repbot.dao.snapshots.ReputationLogEntry;
 
 import java.util.List;
-import java.util.function.Function;
+import java.util.function.BiFunction;
 import java.util.function.Supplier;
 
 public class ReputationLogAccess extends PageAccess<ReputationLogEntry> {
-    public ReputationLogAccess(Supplier<Integer> pagecount, Function<Integer, List<ReputationLogEntry>> pageSupplier) {
+    public ReputationLogAccess(Supplier<Integer> pagecount, BiFunction<Integer, ReputationLogEntry, List<ReputationLogEntry>> pageSupplier) {
         super(pagecount, pageSupplier);
     }
 }
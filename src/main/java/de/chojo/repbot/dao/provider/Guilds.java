@@ -2,11 +2,15 @@ package de.chojo.repbot.dao.provider;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import de.chojo.repbot.dao.access.ReputationLogWriter;
 import de.chojo.repbot.dao.access.guild.RepGuild;
+import de.chojo.repbot.dao.access.guild.settings.SettingsLoader;
 import net.dv8tion.jda.api.entities.Guild;
 import org.slf4j.Logger;
 
 import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
@@ -15,18 +19,40 @@ import static org.slf4j.LoggerFactory.getLogger;
 public class Guilds {
     private static final Logger log = getLogger(Guilds.class);
     private final DataSource dataSource;
+    private final ReputationLogWriter logWriter;
+    private final SettingsLoader settingsLoader;
     private final Cache<Long, RepGuild> guilds = CacheBuilder.newBuilder().expireAfterAccess(30, TimeUnit.MINUTES).build();
 
-    public Guilds(DataSource dataSource) {
+    public Guilds(DataSource dataSource, ReputationLogWriter logWriter) {
         this.dataSource = dataSource;
+        this.logWriter = logWriter;
+        settingsLoader = new SettingsLoader(dataSource);
     }
 
     public RepGuild guild(Guild guild) {
         try {
-            return guilds.get(guild.getIdLong(), () -> new RepGuild(dataSource, guild)).refresh(guild);
+            return guilds.get(guild.getIdLong(), () -> new RepGuild(dataSource, guild, logWriter)).refresh(guild);
         } catch (ExecutionException e) {
             log.error("Could not create guild adapter", e);
             throw new RuntimeException("", e);
         }
     }
+
+    /**
+     * Gets the adapters of multiple guilds.
+     * <p>
+     * The settings of all guilds which are not loaded yet are loaded with a single query.
+     *
+     * @param guilds guilds
+     * @return adapters of the guilds
+     */
+    public List<RepGuild> guilds(Collection<Guild> guilds) {
+        var repGuilds = guilds.stream().map(this::guild).toList();
+        var settings = repGuilds.stream()
+                .map(RepGuild::settings)
+                .filter(s -> !s.isLoaded())
+                .toList();
+        settingsLoader.load(settings);
+        return repGuilds;
+    }
 }
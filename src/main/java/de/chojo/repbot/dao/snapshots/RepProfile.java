@@ -6,6 +6,7 @@ import de.chojo.jdautil.localization.util.LocalizedEmbedBuilder;
 import de.chojo.jdautil.localization.util.Replacement;
 import de.chojo.jdautil.util.MentionUtil;
 import de.chojo.repbot.config.Configuration;
+import de.chojo.repbot.dao.access.guild.reputation.sub.Leaderboard;
 import de.chojo.repbot.dao.access.guild.reputation.sub.RepUser;
 import de.chojo.repbot.util.TextGenerator;
 import net.dv8tion.jda.api.EmbedBuilder;
@@ -20,18 +21,26 @@ import java.sql.SQLException;
 /**
  * Snapshot of a user reputation profile.
  */
-public record RepProfile(RepUser repUser, long rank, long rankDonated, long userId, long reputation, long repOffset, long rawReputation,
+public record RepProfile(RepUser repUser, long rank, long userId, long reputation, long repOffset, long rawReputation,
                          long donated) {
     private static final int BAR_SIZE = 20;
 
     public static RepProfile empty(RepUser repuser, User user) {
-        return new RepProfile(repuser, 0, user.getIdLong(), 0, 0, 0, 0, 0);
+        return new RepProfile(repuser, 0, user.getIdLong(), 0, 0, 0, 0);
     }
 
-    public static RepProfile buildProfile(RepUser repuser, ResultSet rs) throws SQLException {
+    /**
+     * Builds the profile of a user from the reputation of the user.
+     *
+     * @param repuser user
+     * @param rank    rank of the user on the leaderboard
+     * @param rs      row with the reputation of the user
+     * @return profile
+     * @throws SQLException if the row can not be read
+     */
+    public static RepProfile buildProfile(RepUser repuser, long rank, ResultSet rs) throws SQLException {
         return new RepProfile(repuser,
-                rs.getLong("rank"),
-                rs.getLong("rank_donated"),
+                rank,
                 rs.getLong("user_id"),
                 rs.getLong("reputation"),
                 rs.getLong("rep_offset"),
@@ -43,7 +52,6 @@ public record RepProfile(RepUser repUser, long rank, long rankDonated, long user
     public static RepProfile buildReceivedRanking(ResultSet rs) throws SQLException {
         return new RepProfile(null,
                 rs.getLong("rank"),
-                0,
                 rs.getLong("user_id"),
                 rs.getLong("reputation"),
                 0,
@@ -52,6 +60,10 @@ public record RepProfile(RepUser repUser, long rank, long rankDonated, long user
         );
     }
 
+    public static RepProfile buildReceivedRanking(Leaderboard.Entry entry) {
+        return new RepProfile(null, entry.rank(), entry.userId(), entry.reputation(), 0, 0, 0);
+    }
+
     public String fancyString(int maxRank) {
         var length = String.valueOf(maxRank).length();
         var rank = StringUtils.rightPad(String.valueOf(this.rank), length);
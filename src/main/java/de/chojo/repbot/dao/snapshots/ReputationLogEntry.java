@@ -14,6 +14,7 @@ import java.time.LocalDateTime;
 public class ReputationLogEntry extends QueryFactoryHolder {
     private static final String PATH = "https://discord.com/channels/%s/%s/%s";
     private static final long DISCORD_EPOCH = 1420070400000L;
+    private final Log log;
     private final long guildId;
     private final long channelId;
     private final long donorId;
@@ -25,6 +26,7 @@ public class ReputationLogEntry extends QueryFactoryHolder {
 
     public ReputationLogEntry(Log log, long guildId, long channelId, long donorId, long receiverId, long messageId, long refMessageId, ThankType type, LocalDateTime received) {
         super(log);
+        this.log = log;
         this.guildId = guildId;
         this.channelId = channelId;
         this.donorId = donorId;
@@ -103,7 +105,12 @@ public class ReputationLogEntry extends QueryFactoryHolder {
         builder()
                 .query("DELETE FROM reputation_log WHERE message_id = ? AND receiver_id = ? AND donor_id = ?;")
                 .paramsBuilder(stmt -> stmt.setLong(messageId).setLong(receiverId).setLong(donorId))
-                .update().execute();
+                .update().execute()
+                .thenRun(() -> {
+                    log.reputation().cooldowns().invalidate();
+                    log.reputation().limits().invalidate();
+                    log.reputation().ranking().invalidate();
+                });
     }
 
     /**
@@ -113,6 +120,11 @@ public class ReputationLogEntry extends QueryFactoryHolder {
         builder()
                 .query("DELETE FROM reputation_log WHERE message_id = ?")
                 .paramsBuilder(stmt -> stmt.setLong(messageId))
-                .update().execute();
+                .update().execute()
+                .thenRun(() -> {
+                    log.reputation().cooldowns().invalidate();
+                    log.reputation().limits().invalidate();
+                    log.reputation().ranking().invalidate();
+                });
     }
 }
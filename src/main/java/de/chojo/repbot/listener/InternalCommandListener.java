@@ -3,8 +3,11 @@ package de.chojo.repbot.listener;
 import de.chojo.jdautil.command.ArgumentBuilder;
 import de.chojo.jdautil.parsing.ArgumentUtil;
 import de.chojo.jdautil.parsing.Verifier;
+import de.chojo.repbot.analyzer.MessageAnalyzer;
 import de.chojo.repbot.config.Configuration;
 import de.chojo.repbot.dao.provider.Metrics;
+import de.chojo.repbot.service.RepBotCachePolicy;
+import de.chojo.repbot.service.RoleUpdater;
 import de.chojo.repbot.statistic.Statistic;
 import de.chojo.repbot.util.LogNotify;
 import de.chojo.repbot.util.TimeFormatter;
@@ -23,11 +26,18 @@ public class InternalCommandListener extends ListenerAdapter {
     private final Configuration configuration;
     private final Statistic statistic;
     private final Metrics metrics;
+    private final MessageAnalyzer messageAnalyzer;
+    private final RoleUpdater roleUpdater;
+    private final RepBotCachePolicy cachePolicy;
 
-    public InternalCommandListener(Configuration configuration, Statistic statistic, Metrics metrics) {
+    public InternalCommandListener(Configuration configuration, Statistic statistic, Metrics metrics, MessageAnalyzer messageAnalyzer,
+                                   RoleUpdater roleUpdater, RepBotCachePolicy cachePolicy) {
         this.configuration = configuration;
         this.statistic = statistic;
         this.metrics = metrics;
+        this.messageAnalyzer = messageAnalyzer;
+        this.roleUpdater = roleUpdater;
+        this.cachePolicy = cachePolicy;
     }
 
     @Override
@@ -68,6 +78,24 @@ public class InternalCommandListener extends ListenerAdapter {
             event.getMessage().replyEmbeds(builder.build()).queue();
         }
 
+        if ("analyzer".equalsIgnoreCase(args[0])) {
+            event.getMessage().reply(String.format("Prefilter checked %d messages and rejected %d (%.02f%%)",
+                    messageAnalyzer.prefilterChecked(), messageAnalyzer.prefilterRejected(),
+                    messageAnalyzer.prefilterRejectRatio() * 100)).queue();
+        }
+
+        if ("roles".equalsIgnoreCase(args[0])) {
+            event.getMessage().reply(String.format("Role updater has %d queued members. Queued %d, coalesced %d, dropped %d, processed %d and failed %d updates",
+                    roleUpdater.queueDepth(), roleUpdater.queued(), roleUpdater.coalesced(), roleUpdater.dropped(),
+                    roleUpdater.processed(), roleUpdater.failed())).queue();
+        }
+
+        if ("cache".equalsIgnoreCase(args[0])) {
+            var seen = cachePolicy.seen();
+            event.getMessage().reply(String.format("Seen members: %d of %d. Expired %d and evicted %d members",
+                    seen.size(), RepBotCachePolicy.MAX_SEEN, seen.expired(), seen.evicted())).queue();
+        }
+
         if ("metrics".equalsIgnoreCase(args[0])) {
             var reply = event.getMessage()
                     .reply("Metrics");
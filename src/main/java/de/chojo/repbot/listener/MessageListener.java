@@ -3,6 +3,7 @@ package de.chojo.repbot.listener;
 import de.chojo.jdautil.localization.ILocalizer;
 import de.chojo.repbot.analyzer.ContextResolver;
 import de.chojo.repbot.analyzer.MessageAnalyzer;
+import de.chojo.repbot.analyzer.MessageEvaluation;
 import de.chojo.repbot.analyzer.ThankType;
 import de.chojo.repbot.config.Configuration;
 import de.chojo.repbot.dao.access.guild.settings.Settings;
@@ -10,6 +11,7 @@ import de.chojo.repbot.dao.access.guild.settings.sub.Thanking;
 import de.chojo.repbot.dao.provider.Guilds;
 import de.chojo.repbot.dao.snapshots.ReputationLogEntry;
 import de.chojo.repbot.listener.voting.ReputationVoteListener;
+import de.chojo.repbot.service.MessagePipeline;
 import de.chojo.repbot.service.RepBotCachePolicy;
 import de.chojo.repbot.service.ReputationService;
 import de.chojo.repbot.util.EmojiDebug;
@@ -30,6 +32,7 @@ import org.slf4j.Logger;
 
 import java.util.LinkedHashSet;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static org.slf4j.LoggerFactory.getLogger;
@@ -44,10 +47,11 @@ public class MessageListener extends ListenerAdapter {
     private final ReputationService reputationService;
     private final ContextResolver contextResolver;
     private final MessageAnalyzer messageAnalyzer;
+    private final MessagePipeline messagePipeline;
 
     public MessageListener(ILocalizer localizer, Configuration configuration, Guilds guilds, RepBotCachePolicy repBotCachePolicy,
                            ReputationVoteListener reputationVoteListener, ReputationService reputationService,
-                           ContextResolver contextResolver, MessageAnalyzer messageAnalyzer) {
+                           ContextResolver contextResolver, MessageAnalyzer messageAnalyzer, MessagePipeline messagePipeline) {
         this.localizer = localizer;
         this.guilds = guilds;
         this.configuration = configuration;
@@ -56,6 +60,7 @@ public class MessageListener extends ListenerAdapter {
         this.reputationService = reputationService;
         this.contextResolver = contextResolver;
         this.messageAnalyzer = messageAnalyzer;
+        this.messagePipeline = messagePipeline;
     }
 
     @Override
@@ -104,62 +109,72 @@ public class MessageListener extends ListenerAdapter {
         if (!thank.donorRoles().hasRole(event.getMember())) return;
 
         var message = event.getMessage();
+        // the context of the message is resolved at most once for all stages
+        var evaluation = contextResolver.evaluation(message, settings);
+        // The analysis is done outside of the event threads. Messages of a channel are still processed in order.
+        messagePipeline.submit(message.getChannel().getIdLong(), () -> process(evaluation, settings));
+    }
 
-        var analyzerResult = messageAnalyzer.processMessage(thank.thankwords().thankwordPattern(), message, settings, true, settings.abuseProtection().maxMessageReputation());
+    private CompletableFuture<?> process(MessageEvaluation evaluation, Settings settings) {
+        var message = evaluation.message();
+        var thank = settings.thanking();
+        var analyzerResult = messageAnalyzer.processMessage(thank.thankwords().matcher(), evaluation, true, settings.abuseProtection().maxMessageReputation());
 
-        if (analyzerResult.type() == ThankType.NO_MATCH) return;
+        if (analyzerResult.type() == ThankType.NO_MATCH) return CompletableFuture.completedFuture(null);
 
-        if (PermissionErrorHandler.assertAndHandle(event.getGuildChannel(), localizer, configuration,
+        if (PermissionErrorHandler.assertAndHandle(message.getGuildChannel(), localizer, configuration,
                 Permission.MESSAGE_SEND, Permission.MESSAGE_ADD_REACTION, Permission.MESSAGE_EMBED_LINKS)) {
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
         if (settings.general().isEmojiDebug()) {
-            Messages.markMessage(event.getMessage(), EmojiDebug.FOUND_THANKWORD);
+            Messages.markMessage(message, EmojiDebug.FOUND_THANKWORD);
         }
 
-        if (settings.abuseProtection().isDonorLimit(event.getMember())) {
+        if (settings.abuseProtection().isDonorLimit(message.getMember())) {
             if (settings.general().isEmojiDebug()) {
-                Messages.markMessage(event.getMessage(), EmojiDebug.DONOR_LIMIT);
+                Messages.markMessage(message, EmojiDebug.DONOR_LIMIT);
             }
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
         var resultType = analyzerResult.type();
         var resolveNoTarget = true;
 
-        var donator = analyzerResult.donator();
-
+        // submissions are chained to apply the limits of the abuse protection in order
+        CompletableFuture<?> submissions = CompletableFuture.completedFuture(null);
         for (var result : analyzerResult.receivers()) {
             var refMessage = analyzerResult.referenceMessage();
             switch (resultType) {
                 case FUZZY -> {
                     if (!settings.reputation().isFuzzyActive()) continue;
-                    reputationService.submitReputation(guild, donator, result.getReference(), message, refMessage, resultType);
+                    submissions = submissions.thenCompose(v -> reputationService.submitReputation(evaluation, result.getReference(), refMessage, resultType));
                     resolveNoTarget = false;
                 }
                 case MENTION -> {
                     if (!settings.reputation().isMentionActive()) continue;
-                    reputationService.submitReputation(guild, donator, result.getReference(), message, refMessage, resultType);
+                    submissions = submissions.thenCompose(v -> reputationService.submitReputation(evaluation, result.getReference(), refMessage, resultType));
                     resolveNoTarget = false;
                 }
                 case ANSWER -> {
                     if (!settings.reputation().isAnswerActive()) continue;
-                    reputationService.submitReputation(guild, donator, result.getReference(), message, refMessage, resultType);
+                    submissions = submissions.thenCompose(v -> reputationService.submitReputation(evaluation, result.getReference(), refMessage, resultType));
                     resolveNoTarget = false;
                 }
             }
         }
-        if (resolveNoTarget && settings.reputation().isEmbedActive()) resolveNoTarget(message, settings);
+        if (resolveNoTarget && settings.reputation().isEmbedActive()) return resolveNoTarget(evaluation, settings);
+        return submissions;
     }
 
-    private void resolveNoTarget(Message message, Settings settings) {
-        var recentMembers = new LinkedHashSet<>(contextResolver.getCombinedContext(message, settings).members());
+    private CompletableFuture<?> resolveNoTarget(MessageEvaluation evaluation, Settings settings) {
+        var message = evaluation.message();
+        var recentMembers = new LinkedHashSet<>(evaluation.context().members());
         recentMembers.remove(message.getMember());
 
         if (recentMembers.isEmpty()) {
             if (settings.general().isEmojiDebug()) Messages.markMessage(message, EmojiDebug.EMPTY_CONTEXT);
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
         var members = recentMembers.stream()
@@ -170,14 +185,14 @@ public class MessageListener extends ListenerAdapter {
 
         if (members.isEmpty()) {
             if (settings.general().isEmojiDebug()) Messages.markMessage(message, EmojiDebug.ONLY_COOLDOWN);
-            return;
+            return CompletableFuture.completedFuture(null);
         }
 
         if(members.size() == 1 && settings.reputation().isSkipSingleEmbed()){
-            reputationService.submitReputation(message.getGuild(), message.getMember(), members.get(0), message, null, ThankType.DIRECT);
-            return;
+            return reputationService.submitReputation(evaluation, members.get(0), null, ThankType.DIRECT);
         }
 
         reputationVoteListener.registerVote(message, members, settings);
+        return CompletableFuture.completedFuture(null);
     }
 }
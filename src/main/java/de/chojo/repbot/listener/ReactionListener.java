@@ -31,6 +31,7 @@ import java.time.temporal.ChronoUnit;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
+import static de.chojo.repbot.util.Guilds.prettyName;
 import static org.slf4j.LoggerFactory.getLogger;
 
 public class ReactionListener extends ListenerAdapter {
@@ -94,19 +95,26 @@ public class ReactionListener extends ListenerAdapter {
         }
 
 
-        if (reputationService.submitReputation(event.getGuild(), event.getMember(), receiver, message, null, ThankType.REACTION)) {
-            reacted(event.getMember());
-            if (guildSettings.messages().isReactionConfirmation()) {
-                event.getChannel().sendMessage(localizer.localize("listener.reaction.confirmation", event.getGuild(),
-                                Replacement.create("DONOR", event.getUser().getAsMention()), Replacement.create("RECEIVER", receiver.getAsMention())))
-                        .mention(event.getUser())
-                        .onErrorFlatMap(err -> null)
-                        .delay(30, TimeUnit.SECONDS)
-                        .flatMap(Message::delete)
-                        .onErrorMap(err -> null)
-                        .queue();
-            }
-        }
+        var finalReceiver = receiver;
+        reputationService.submitReputation(event.getGuild(), event.getMember(), receiver, message, null, ThankType.REACTION)
+                .thenAccept(success -> {
+                    if (!success) return;
+                    reacted(event.getMember());
+                    if (guildSettings.messages().isReactionConfirmation()) {
+                        event.getChannel().sendMessage(localizer.localize("listener.reaction.confirmation", event.getGuild(),
+                                        Replacement.create("DONOR", event.getUser().getAsMention()), Replacement.create("RECEIVER", finalReceiver.getAsMention())))
+                                .mention(event.getUser())
+                                .onErrorFlatMap(err -> null)
+                                .delay(30, TimeUnit.SECONDS)
+                                .flatMap(Message::delete)
+                                .onErrorMap(err -> null)
+                                .queue();
+                    }
+                })
+                .exceptionally(err -> {
+                    log.warn("Could not submit reaction reputation on {}", prettyName(event.getGuild()), err);
+                    return null;
+                });
     }
 
 
@@ -26,25 +26,32 @@ import net.dv8tion.jda.api.interactions.components.buttons.ButtonStyle;
 import net.dv8tion.jda.api.requests.ErrorResponse;
 import net.dv8tion.jda.api.requests.RestAction;
 import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
 
 import java.awt.Color;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
+import static de.chojo.repbot.util.Guilds.prettyName;
+import static org.slf4j.LoggerFactory.getLogger;
+
 public class ReputationVoteListener extends ListenerAdapter {
+    private static final Logger log = getLogger(ReputationVoteListener.class);
     private static final ActionComponent DELETE = Button.of(ButtonStyle.DANGER, "vote:delete", Emoji.fromUnicode("🗑️"));
     private static final Pattern VOTE = Pattern.compile("vote:(?<id>[0-9]*?)");
     private Guilds guilds;
     private final ReputationService reputationService;
     private final ILocalizer loc;
     private final Configuration configuration;
-    private final Map<Long, VoteRequest> voteRequests = new HashMap<>();
+    // votes are completed off the event threads
+    private final Map<Long, VoteRequest> voteRequests = new ConcurrentHashMap<>();
 
     public ReputationVoteListener(Guilds guilds, ReputationService reputationService, ILocalizer localizer, Configuration configuration) {
         this.guilds = guilds;
@@ -75,28 +82,41 @@ public class ReputationVoteListener extends ListenerAdapter {
             return;
         }
 
-        var target = voteRequest.getTarget(event.getButton().getId());
-
-        if (!voteRequest.canVote()) return;
+        var buttonId = event.getButton().getId();
+        // votes of one embed are counted one after another
+        voteRequest.queue(() -> {
+            if (!voteRequest.canVote() || !voteRequest.voteTargets().containsKey(buttonId)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            var target = voteRequest.getTarget(buttonId);
+            return reputationService.submitReputation(event.getGuild(), event.getMember(), target.get(), voteRequest.refMessage(), null, ThankType.EMBED)
+                    .thenAccept(success -> {
+                        if (success) voted(event, voteRequest, buttonId);
+                    })
+                    .exceptionally(err -> {
+                        log.warn("Could not submit vote on {}", prettyName(event.getGuild()), err);
+                        return null;
+                    });
+        });
+    }
 
-        if (reputationService.submitReputation(event.getGuild(), event.getMember(), target.get(), voteRequest.refMessage(), null, ThankType.EMBED)) {
-            voteRequest.voted();
-            voteRequest.remove(event.getButton().getId());
-            voteRequest.voteMessage().
-                    editMessageEmbeds(voteRequest.getNewEmbed(loc.localize("listener.messages.request.descrThank"
+    private void voted(ButtonInteractionEvent event, VoteRequest voteRequest, String buttonId) {
+        voteRequest.voted();
+        voteRequest.remove(buttonId);
+        voteRequest.voteMessage().
+                editMessageEmbeds(voteRequest.getNewEmbed(loc.localize("listener.messages.request.descrThank"
+                        , event.getGuild(), Replacement.create("MORE", voteRequest.remainingVotes()))))
+                .setActionRows(getComponentRows(voteRequest.components()))
+                .queue(suc -> {
+                }, ErrorResponseException.ignore(ErrorResponse.UNKNOWN_MESSAGE));
+        if (voteRequest.remainingVotes() == 0) {
+            voteRequest.voteMessage()
+                    .editMessageEmbeds(voteRequest.getNewEmbed(loc.localize("listener.messages.request.descrThank"
                             , event.getGuild(), Replacement.create("MORE", voteRequest.remainingVotes()))))
-                    .setActionRows(getComponentRows(voteRequest.components()))
-                    .queue(suc -> {
-                    }, ErrorResponseException.ignore(ErrorResponse.UNKNOWN_MESSAGE));
-            if (voteRequest.remainingVotes() == 0) {
-                voteRequest.voteMessage()
-                        .editMessageEmbeds(voteRequest.getNewEmbed(loc.localize("listener.messages.request.descrThank"
-                                , event.getGuild(), Replacement.create("MORE", voteRequest.remainingVotes()))))
-                        .setActionRows(Collections.emptyList())
-                        .queue();
-                voteRequest.voteMessage().delete().queueAfter(5, TimeUnit.SECONDS,
-                        suc -> voteRequests.remove(voteRequest.voteMessage().getIdLong()), ErrorResponseException.ignore(ErrorResponse.UNKNOWN_MESSAGE));
-            }
+                    .setActionRows(Collections.emptyList())
+                    .queue();
+            voteRequest.voteMessage().delete().queueAfter(5, TimeUnit.SECONDS,
+                    suc -> voteRequests.remove(voteRequest.voteMessage().getIdLong()), ErrorResponseException.ignore(ErrorResponse.UNKNOWN_MESSAGE));
         }
     }
 
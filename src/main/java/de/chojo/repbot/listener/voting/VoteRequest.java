@@ -9,6 +9,8 @@ import net.dv8tion.jda.api.interactions.components.ActionComponent;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 public class VoteRequest {
     private final Member member;
@@ -17,6 +19,7 @@ public class VoteRequest {
     private final Message refMessage;
     private final Map<String, VoteComponent> voteTargets;
     private int remainingVotes;
+    private CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
 
     public VoteRequest(Member member, LocalizedEmbedBuilder embedBuilder, Message voteMessage, Message refMessage, Map<String, VoteComponent> voteTargets, int remainingVotes) {
         this.member = member;
@@ -74,4 +77,14 @@ public class VoteRequest {
     public boolean canVote() {
         return remainingVotes > 0;
     }
+
+    /**
+     * Queues a vote. The vote is started once all previous votes of this request are completed.
+     *
+     * @param vote supplier which starts the vote
+     */
+    public synchronized void queue(Supplier<CompletableFuture<Void>> vote) {
+        // a failed vote is handled by the vote itself and must not block the following votes
+        pending = pending.thenCompose(v -> vote.get()).exceptionally(err -> null);
+    }
 }
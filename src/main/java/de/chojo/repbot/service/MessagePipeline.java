@@ -0,0 +1,57 @@
+package de.chojo.repbot.service;
+
+import org.slf4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Processes messages outside of the event threads.
+ * <p>
+ * Messages of the same channel are processed in the order they were submitted. The processing of a message is done
+ * when the future returned by its stages is completed. Messages of different channels are processed in parallel.
+ */
+public class MessagePipeline {
+    private static final Logger log = getLogger(MessagePipeline.class);
+    private final Map<Long, CompletableFuture<Void>> channels = new ConcurrentHashMap<>();
+    private final Executor executor;
+
+    public MessagePipeline(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Submit the processing of a message.
+     *
+     * @param channelId id of the channel of the message
+     * @param stages    supplier which starts the processing of the message
+     * @return future which completes when the message is processed
+     */
+    public CompletableFuture<Void> submit(long channelId, Supplier<CompletableFuture<?>> stages) {
+        var future = channels.compute(channelId, (id, tail) -> {
+            var previous = tail == null ? CompletableFuture.<Void>completedFuture(null) : tail;
+            return previous.thenComposeAsync(v -> stages.get(), executor)
+                    .handle((result, err) -> {
+                        if (err != null) log.error("Could not process message in channel {}", channelId, err);
+                        return null;
+                    });
+        });
+        // remove the channel when no other message was queued in the meantime
+        future.thenRun(() -> channels.remove(channelId, future));
+        return future;
+    }
+
+    /**
+     * The executor used to process the stages.
+     *
+     * @return executor
+     */
+    public Executor executor() {
+        return executor;
+    }
+}
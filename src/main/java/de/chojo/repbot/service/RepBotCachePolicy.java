@@ -6,26 +6,36 @@ import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.utils.MemberCachePolicy;
 import org.jetbrains.annotations.NotNull;
 
-import java.time.Instant;
-import java.time.temporal.ChronoUnit;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Set;
-
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Member cache policy which keeps members which were seen in the last {@link #CACHE_DURATION} minutes.
+ * <p>
+ * Seen members are held in a {@link SeenMap} with up to {@link #MAX_SEEN} members. Expired members are removed every
+ * {@link #CACHE_DURATION} minutes.
+ */
 public class RepBotCachePolicy implements MemberCachePolicy, Runnable {
     public static final int CACHE_DURATION = 30;
-    private final HashMap<Long, Instant> seen = new HashMap<>();
+    public static final int MAX_SEEN = 500000;
+    private final SeenMap seen = new SeenMap(MAX_SEEN, TimeUnit.MINUTES.toSeconds(CACHE_DURATION));
     private final Scan scan;
 
     private final Roles roles;
 
-    public RepBotCachePolicy(Scan scan, Roles roles) {
+    private RepBotCachePolicy(Scan scan, Roles roles) {
         this.scan = scan;
         this.roles = roles;
     }
 
+    public static RepBotCachePolicy create(Scan scan, Roles roles, ScheduledExecutorService executor) {
+        var policy = new RepBotCachePolicy(scan, roles);
+        executor.scheduleAtFixedRate(policy, CACHE_DURATION, CACHE_DURATION, TimeUnit.MINUTES);
+        return policy;
+    }
+
     public void seen(Member member) {
-        seen.put(member.getIdLong(), Instant.now());
+        seen.touch(member.getIdLong());
     }
 
     @Override
@@ -49,13 +59,13 @@ public class RepBotCachePolicy implements MemberCachePolicy, Runnable {
         }
 
         // We always want to keep members we see for the first time
-        if (!seen.containsKey(member.getIdLong())) {
-            seen.put(member.getIdLong(), Instant.now());
+        if (!seen.contains(member.getIdLong())) {
+            seen.touch(member.getIdLong());
             return true;
         }
 
         // Check if we have seen this member recently
-        if (seen.get(member.getIdLong()).isAfter(oldest())) {
+        if (seen.isRecent(member.getIdLong())) {
             return true;
         }
 
@@ -68,18 +78,16 @@ public class RepBotCachePolicy implements MemberCachePolicy, Runnable {
         clean();
     }
 
-    public synchronized void clean() {
-        Set<Long> remove = new HashSet<>();
-        var oldest = oldest();
-        seen.forEach((key, value) -> {
-            if (value.isBefore(oldest)) {
-                remove.add(key);
-            }
-        });
-        remove.forEach(seen::remove);
+    public void clean() {
+        seen.sweep();
     }
 
-    private Instant oldest() {
-        return Instant.now().minus(CACHE_DURATION, ChronoUnit.MINUTES);
+    /**
+     * The seen members.
+     *
+     * @return seen map
+     */
+    public SeenMap seen() {
+        return seen;
     }
 }
@@ -0,0 +1,27 @@
+package de.chojo.repbot.service;
+
+import de.chojo.repbot.dao.access.Cleanup;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removes expired daily reputation buckets of the rolling reputation modes.
+ */
+public class ReputationBucketService implements Runnable {
+    private final Cleanup cleanup;
+
+    private ReputationBucketService(Cleanup cleanup) {
+        this.cleanup = cleanup;
+    }
+
+    public static void create(Cleanup cleanup, ScheduledExecutorService service) {
+        var bucketService = new ReputationBucketService(cleanup);
+        service.scheduleAtFixedRate(bucketService, 5, 360, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void run() {
+        cleanup.cleanupReputationBuckets();
+    }
+}
@@ -4,7 +4,7 @@ import de.chojo.jdautil.localization.ILocalizer;
 import de.chojo.jdautil.localization.util.Replacement;
 import de.chojo.jdautil.parsing.Verifier;
 import de.chojo.repbot.analyzer.ContextResolver;
-import de.chojo.repbot.analyzer.MessageContext;
+import de.chojo.repbot.analyzer.MessageEvaluation;
 import de.chojo.repbot.analyzer.ThankType;
 import de.chojo.repbot.config.elements.MagicImage;
 import de.chojo.repbot.dao.access.guild.settings.Settings;
@@ -20,34 +20,46 @@ import net.dv8tion.jda.api.exceptions.ErrorResponseException;
 import net.dv8tion.jda.api.requests.ErrorResponse;
 import net.dv8tion.jda.api.requests.RestAction;
 import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
 
 import java.awt.Color;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
+import static de.chojo.repbot.util.Guilds.prettyName;
+import static org.slf4j.LoggerFactory.getLogger;
+
 public class ReputationService {
+    private static final Logger log = getLogger(ReputationService.class);
     private final Guilds guilds;
     private final RoleAssigner assigner;
     private final MagicImage magicImage;
     private final ContextResolver contextResolver;
     private final ILocalizer localizer;
+    private final Executor executor;
     private Instant lastEasterEggSent = Instant.EPOCH;
 
-    public ReputationService(Guilds guilds, ContextResolver contextResolver, RoleAssigner assigner, MagicImage magicImage, ILocalizer localizer) {
+    public ReputationService(Guilds guilds, ContextResolver contextResolver, RoleAssigner assigner, MagicImage magicImage,
+                             ILocalizer localizer, Executor executor) {
         this.guilds = guilds;
         this.assigner = assigner;
         this.magicImage = magicImage;
         this.contextResolver = contextResolver;
         this.localizer = localizer;
+        this.executor = executor;
     }
 
     /**
      * Submit a reputation.
      * <p>
      * This reputation will be checked by several factors based on the {@link de.chojo.repbot.dao.access.guild.settings.Settings}.
+     * <p>
+     * The context, abuse protection, persistence and reaction stages are executed on the executor of the service.
      *
      * @param guild      guild where the vote was given
      * @param donor      donor of the reputation
@@ -55,71 +67,90 @@ public class ReputationService {
      * @param message    triggered message
      * @param refMessage reference message if present
      * @param type       type of reputation source
-     * @return true if the reputation was counted and is valid
+     * @return future which completes with true if the reputation was counted and is valid
      */
-    public boolean submitReputation(Guild guild, Member donor, Member receiver, Message message, @Nullable Message refMessage, ThankType type) {
+    public CompletableFuture<Boolean> submitReputation(Guild guild, Member donor, Member receiver, Message message, @Nullable Message refMessage, ThankType type) {
+        var settings = guilds.guild(guild).settings();
+        return submit(guild, donor, receiver, message, refMessage, type, settings, getEvaluation(guild, donor, message, type, settings));
+    }
+
+    /**
+     * Submit a reputation for the message of an evaluation.
+     * <p>
+     * The context and settings of the evaluation are used for the checks.
+     *
+     * @param evaluation evaluation of the message
+     * @param receiver   receiver of the reputation
+     * @param refMessage reference message if present
+     * @param type       type of reputation source
+     * @return future which completes with true if the reputation was counted and is valid
+     */
+    public CompletableFuture<Boolean> submitReputation(MessageEvaluation evaluation, Member receiver, @Nullable Message refMessage, ThankType type) {
+        var settings = evaluation.settings() == null ? guilds.guild(evaluation.guild()).settings() : evaluation.settings();
+        return submit(evaluation.guild(), evaluation.donor(), receiver, evaluation.message(), refMessage, type, settings, evaluation);
+    }
+
+    private CompletableFuture<Boolean> submit(Guild guild, Member donor, Member receiver, Message message,
+                                              @Nullable Message refMessage, ThankType type, Settings settings,
+                                              MessageEvaluation evaluation) {
         // block bots
-        if (receiver.getUser().isBot()) return false;
+        if (receiver.getUser().isBot()) return CompletableFuture.completedFuture(false);
 
-        var settings = guilds.guild(guild).settings();
         var messageSettings = settings.reputation();
         var thankSettings = settings.thanking();
 
         // block non reputation channel
-        if (!thankSettings.channels().isEnabled(message.getGuildChannel())) return false;
+        if (!thankSettings.channels().isEnabled(message.getGuildChannel())) return CompletableFuture.completedFuture(false);
 
-        if (!thankSettings.donorRoles().hasRole(guild.getMember(donor))) return false;
-        if (!thankSettings.receiverRoles().hasRole(guild.getMember(receiver))) return false;
+        if (!thankSettings.donorRoles().hasRole(guild.getMember(donor))) return CompletableFuture.completedFuture(false);
+        if (!thankSettings.receiverRoles().hasRole(guild.getMember(receiver))) return CompletableFuture.completedFuture(false);
 
-        if (isTypeDisabled(type, messageSettings)) return false;
+        if (isTypeDisabled(type, messageSettings)) return CompletableFuture.completedFuture(false);
 
-        var context = getContext(guild, donor, message, type, settings);
+        if (isSelfVote(donor, receiver, message)) return CompletableFuture.completedFuture(false);
 
-        if (isSelfVote(donor, receiver, message)) return false;
-
-        if (assertAbuseProtection(guild, donor, receiver, message, refMessage, context)) return false;
-
-        return log(guild, donor, receiver, message, refMessage, type, settings);
+        return CompletableFuture.supplyAsync(() -> !assertAbuseProtection(guild, donor, receiver, message, refMessage, evaluation, settings), executor)
+                .thenCompose(valid -> valid ? log(guild, donor, receiver, message, refMessage, type, settings) : CompletableFuture.completedFuture(false))
+                .thenApplyAsync(logged -> {
+                    if (logged) acknowledge(guild, receiver, message, refMessage, settings);
+                    return logged;
+                }, executor);
     }
 
-    private MessageContext getContext(Guild guild, Member donor, Message message, ThankType type, Settings settings) {
-        MessageContext context;
+    private MessageEvaluation getEvaluation(Guild guild, Member donor, Message message, ThankType type, Settings settings) {
         if (type == ThankType.REACTION) {
             // Check if user was recently seen in this channel.
-            context = contextResolver.getCombinedContext(guild.getMember(donor), message, settings);
-        } else {
-            context = contextResolver.getCombinedContext(message, settings);
+            return contextResolver.evaluation(guild.getMember(donor), message, settings);
         }
-        return context;
+        return contextResolver.evaluation(message, settings);
     }
 
-    private boolean assertAbuseProtection(Guild guild, Member donor, Member receiver, Message message, @Nullable Message refMessage, MessageContext context) {
-        var settings = guilds.guild(guild).settings();
+    /**
+     * Checks the abuse protection.
+     * <p>
+     * The context of the evaluation is only resolved when a context check is active.
+     */
+    private boolean assertAbuseProtection(Guild guild, Member donor, Member receiver, Message message, @Nullable Message refMessage,
+                                          MessageEvaluation evaluation, Settings settings) {
         var addEmoji = settings.general().isEmojiDebug();
         var abuseSettings = settings.abuseProtection();
 
         // Abuse Protection: target context
-        if (!context.members().contains(receiver) && abuseSettings.isReceiverContext()) {
+        if (abuseSettings.isReceiverContext() && !evaluation.context().members().contains(receiver)) {
             if (addEmoji) Messages.markMessage(message, EmojiDebug.TARGET_NOT_IN_CONTEXT);
             return true;
         }
 
         // Abuse Protection: donor context
-        if (!context.members().contains(donor) && abuseSettings.isDonorContext()) {
+        if (abuseSettings.isDonorContext() && !evaluation.context().members().contains(donor)) {
             if (addEmoji) Messages.markMessage(message, EmojiDebug.DONOR_NOT_IN_CONTEXT);
             return true;
         }
 
-        // Abuse protection: Cooldown
-        if (!canVote(donor, receiver, guild, settings)) {
-            if (addEmoji) Messages.markMessage(message, EmojiDebug.ONLY_COOLDOWN);
-            return true;
-        }
-
         // block outdated ref message
         // Abuse protection: Message age
         if (refMessage != null) {
-            if (abuseSettings.isOldMessage(refMessage) && !context.latestMessages(abuseSettings.minMessages()).contains(refMessage)) {
+            if (abuseSettings.isOldMessage(refMessage) && !evaluation.isLatestMessage(refMessage, abuseSettings.minMessages())) {
                 if (addEmoji) Messages.markMessage(message, EmojiDebug.TOO_OLD);
                 return true;
             }
@@ -132,17 +163,6 @@ public class ReputationService {
             return true;
         }
 
-
-        if (abuseSettings.isReceiverLimit(receiver)) {
-            if (addEmoji) Messages.markMessage(message, EmojiDebug.RECEIVER_LIMIT);
-            return true;
-        }
-
-        if (abuseSettings.isDonorLimit(receiver)) {
-            if (addEmoji) Messages.markMessage(message, EmojiDebug.DONOR_LIMIT);
-            return true;
-        }
-
         return false;
     }
 
@@ -167,15 +187,36 @@ public class ReputationService {
         return false;
     }
 
-    private boolean log(Guild guild, Member donor, Member receiver, Message message, @Nullable Message refMessage, ThankType type, Settings settings) {
+    private CompletableFuture<Boolean> log(Guild guild, Member donor, Member receiver, Message message, @Nullable Message refMessage,
+                                           ThankType type, Settings settings) {
         // try to log reputation
-        if (guilds.guild(guild).reputation().user(receiver).addReputation(donor, message, refMessage, type)) {
-            // mark messages
-            Messages.markMessage(message, refMessage, settings);
-            // update role
-            try {
-                var newRank = assigner.update(guild.getMember(receiver));
+        // Abuse protection: Cooldown and limits are checked together with the submission.
+        // submit to database fails if this message was already voted by the user.
+        return guilds.guild(guild).reputation().user(receiver).submitReputation(donor, message, refMessage, type)
+                .thenApply(result -> {
+                    if (settings.general().isEmojiDebug()) {
+                        switch (result) {
+                            case COOLDOWN -> Messages.markMessage(message, EmojiDebug.ONLY_COOLDOWN);
+                            case RECEIVER_LIMIT -> Messages.markMessage(message, EmojiDebug.RECEIVER_LIMIT);
+                            case DONOR_LIMIT -> Messages.markMessage(message, EmojiDebug.DONOR_LIMIT);
+                            default -> {
+                            }
+                        }
+                    }
+                    return result.isLogged();
+                });
+    }
 
+    private void acknowledge(Guild guild, Member receiver, Message message, @Nullable Message refMessage, Settings settings) {
+        // mark messages
+        Messages.markMessage(message, refMessage, settings);
+        // update role
+        try {
+            assigner.update(guild.getMember(receiver)).whenComplete((newRank, err) -> {
+                if (err != null) {
+                    log.warn("Could not update roles of {} on {}", receiver.getId(), prettyName(guild), err);
+                    return;
+                }
                 // Send level up message
                 newRank.ifPresent(rank -> {
                     var announcements = guilds.guild(guild).settings().announcements();
@@ -190,18 +231,14 @@ public class ReputationService {
                             .allowedMentions(Collections.emptyList())
                             .queue();
                 });
-
-            } catch (RoleAccessException e) {
-                message.getChannel()
-                        .sendMessage(localizer.localize("error.roleAccess", message.getGuild(),
-                                Replacement.createMention("ROLE", e.role())))
-                        .allowedMentions(Collections.emptyList())
-                        .queue();
-            }
-            return true;
+            });
+        } catch (RoleAccessException e) {
+            message.getChannel()
+                    .sendMessage(localizer.localize("error.roleAccess", message.getGuild(),
+                            Replacement.createMention("ROLE", e.role())))
+                    .allowedMentions(Collections.emptyList())
+                    .queue();
         }
-        // submit to database failed. Maybe this message was already voted by the user.
-        return false;
     }
 
     private boolean isTypeDisabled(ThankType type, Reputation reputation) {
@@ -1,19 +1,23 @@
 package de.chojo.repbot.service;
 
+import de.chojo.repbot.dao.access.guild.settings.sub.Ranks;
 import de.chojo.repbot.dao.provider.Guilds;
 import de.chojo.repbot.dao.snapshots.ReputationRank;
 import de.chojo.repbot.util.Roles;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.entities.Role;
-import net.dv8tion.jda.api.utils.concurrent.Task;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static de.chojo.repbot.util.Guilds.prettyName;
@@ -29,75 +33,132 @@ public class RoleAssigner {
 
     /**
      * Updates the rank of the member.
+     * <p>
+     * The roles of the member are changed with a single request. The request is not awaited.
      *
      * @param member member to update
-     * @return the new highest role of the member, if it changed.
+     * @return future which completes with the new highest role of the member, if it changed.
      * @throws RoleAccessException if the role cant be accessed
      */
-    public Optional<ReputationRank> update(@Nullable Member member) throws RoleAccessException {
-        if (member == null) return Optional.empty();
+    public CompletableFuture<Optional<ReputationRank>> update(@Nullable Member member) throws RoleAccessException {
+        if (member == null) return CompletableFuture.completedFuture(Optional.empty());
         log.debug("Updating {} on {}", member.getId(), prettyName(member.getGuild()));
         var guild = member.getGuild();
         var repGuild = guilds.guild(member.getGuild());
-        var reputation = repGuild.reputation().user(member);
-        var settings = repGuild.settings();
+        // the reputation is read once for the current ranks and the highest rank
+        var reputation = repGuild.reputation().user(member).currentReputation();
+        var ranks = repGuild.settings().ranks();
 
-        var roles = settings.ranks().currentRanks(reputation)
-                .stream()
-                .map(r -> guild.getRoleById(r.roleId()))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-
-        var removed = cleanMemberRoles(member, roles);
-        var added = addMemberRoles(member, roles);
+        var change = change(member, reputation, ranks, reputationRoles(guild, ranks));
+        if (change.isEmpty()) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
 
-        var changed = removed || added;
+        return apply(change.get()).thenApply(v -> ranks.currentRank(reputation));
+    }
 
-        if (!changed) {
-            return Optional.empty();
+    /**
+     * Updates the ranks of all members of the guild.
+     * <p>
+     * The reputation of all users is read with one query and compared with the roles of the loaded members. Only
+     * members whose roles differ are changed. The changes are applied one after another, to not flood the rate limit of
+     * the guild.
+     *
+     * @param guild guild to update
+     * @return future which completes when all changes are applied or with a {@link RoleAccessException} if a role cant
+     * be accessed
+     */
+    public CompletableFuture<Void> updateBatch(Guild guild) {
+        log.info("Started batch update for guild {}", prettyName(guild));
+        var repGuild = guilds.guild(guild);
+        var ranks = repGuild.settings().ranks();
+        List<Role> reputationRoles;
+        try {
+            reputationRoles = reputationRoles(guild, ranks);
+        } catch (RoleAccessException e) {
+            return CompletableFuture.failedFuture(e);
         }
+        var reputations = repGuild.reputation().currentReputations();
+
+        Queue<RoleChange> changes = new ArrayDeque<>();
+        var loaded = new CompletableFuture<Void>();
+        guild.loadMembers(member -> change(member, reputations.getOrDefault(member.getIdLong(), 0L), ranks, reputationRoles)
+                        .ifPresent(changes::add))
+                .onSuccess(loaded::complete)
+                .onError(loaded::completeExceptionally);
+
+        return loaded.thenCompose(v -> {
+            log.info("Updating roles of {} members on {}", changes.size(), prettyName(guild));
+            return applyAll(changes);
+        });
+    }
 
-        return settings.ranks().currentRank(reputation);
+    private CompletableFuture<Void> applyAll(Queue<RoleChange> changes) {
+        var change = changes.poll();
+        if (change == null) return CompletableFuture.completedFuture(null);
+        return apply(change)
+                .handle((v, err) -> {
+                    if (err != null) {
+                        log.warn("Could not update roles of {} on {}", change.member().getId(), prettyName(change.member().getGuild()), err);
+                    }
+                    return null;
+                })
+                .thenCompose(v -> applyAll(changes));
     }
 
-    private boolean cleanMemberRoles(Member member, Set<Role> roles) throws RoleAccessException {
-        var guild = member.getGuild();
+    private CompletableFuture<Void> apply(RoleChange change) {
+        var member = change.member();
+        log.debug("Assigning roles {} and removing roles {} on {}", prettyNames(change.add()), prettyNames(change.remove()), prettyName(member.getGuild()));
+        return member.getGuild().modifyMemberRoles(member, change.add(), change.remove()).submit();
+    }
 
-        var reputationRoles = guilds.guild(guild).settings().ranks().ranks()
+    /**
+     * Computes the reputation roles which have to be added to and removed from the member.
+     *
+     * @param member          member
+     * @param reputation      current reputation of the member
+     * @param ranks           ranks of the guild
+     * @param reputationRoles all roles of the ranks
+     * @return the changes if the roles of the member differ
+     */
+    private Optional<RoleChange> change(Member member, long reputation, Ranks ranks, List<Role> reputationRoles) {
+        var guild = member.getGuild();
+        var roles = ranks.currentRanks(reputation)
                 .stream()
-                .map(ReputationRank::roleId)
-                .map(guild::getRoleById)
+                .map(r -> guild.getRoleById(r.roleId()))
                 .filter(Objects::nonNull)
-                .toList();
-        var changed = false;
+                .collect(Collectors.toSet());
 
+        var memberRoles = new HashSet<>(member.getRoles());
+        List<Role> add = new ArrayList<>();
+        List<Role> remove = new ArrayList<>();
         for (var role : reputationRoles) {
-            assertInteract(role, member.getGuild());
-            if (roles.contains(role)) continue;
-            if (member.getRoles().contains(role)) {
-                log.debug("Removing role {} on {}", Roles.prettyName(role), prettyName(guild));
-                guild.removeRoleFromMember(member, role).complete();
-                changed = true;
+            if (roles.contains(role)) {
+                if (!memberRoles.contains(role)) add.add(role);
+            } else if (memberRoles.contains(role)) {
+                remove.add(role);
             }
         }
-        return changed;
-    }
-
-    private boolean addMemberRoles(Member member, Set<Role> roles) {
-        var guild = member.getGuild();
-        if (new HashSet<>(member.getRoles()).containsAll(roles)) return false;
 
-        var changed = false;
+        if (add.isEmpty() && remove.isEmpty()) return Optional.empty();
+        return Optional.of(new RoleChange(member, add, remove));
+    }
 
+    private List<Role> reputationRoles(Guild guild, Ranks ranks) throws RoleAccessException {
+        var roles = ranks.ranks()
+                .stream()
+                .map(ReputationRank::roleId)
+                .map(guild::getRoleById)
+                .filter(Objects::nonNull)
+                .toList();
         for (var role : roles) {
             assertInteract(role, guild);
-            if (!member.getRoles().contains(role)) {
-                log.debug("Assigning role {} on {}", Roles.prettyName(role), prettyName(guild));
-                guild.addRoleToMember(member, role).complete();
-                changed = true;
-            }
         }
-        return changed;
+        return roles;
+    }
+
+    private static String prettyNames(List<Role> roles) {
+        return roles.stream().map(Roles::prettyName).collect(Collectors.joining(", "));
     }
 
     private void assertInteract(Role role, Guild guild) throws RoleAccessException {
@@ -106,8 +167,6 @@ public class RoleAssigner {
         }
     }
 
-    public Task<Void> updateBatch(Guild guild) {
-        log.info("Started batch update for guild {}", prettyName(guild));
-        return guild.loadMembers(this::update);
+    private record RoleChange(Member member, List<Role> add, List<Role> remove) {
     }
 }
@@ -1,54 +1,234 @@
 package de.chojo.repbot.service;
 
 import de.chojo.repbot.dao.provider.Guilds;
-import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
+import static de.chojo.repbot.util.Guilds.prettyName;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Refreshes the roles of members in guilds with a rolling reputation mode.
+ * <p>
+ * A member is queued on their first message and not again until the checked members are cleared every 30 minutes.
+ * The queue holds up to {@link #MAX_QUEUE} members. Members which do not fit are dropped and queued again on their
+ * next message.
+ * <p>
+ * The members of a guild are updated one after another, because the rate limits of role updates apply per guild. Up to
+ * {@link #MAX_GUILDS} guilds are updated at once, so a guild which waits for its rate limit does not hold back the
+ * others. Guilds which do not fit wait for a free slot in the order they were queued. The reputation of a member is read
+ * on the executor, the role update itself is not awaited on a thread.
+ */
 public class RoleUpdater extends ListenerAdapter implements Runnable {
+    private static final Logger log = getLogger(RoleUpdater.class);
+    private static final int MAX_QUEUE = 10000;
+    private static final int MAX_GUILDS = 50;
     private final Guilds guilds;
-    private final Map<Long, Set<Long>> checked = new HashMap<>();
     private final RoleAssigner roleAssigner;
+    private final Executor executor;
+    private final Set<Key> checked = ConcurrentHashMap.newKeySet();
+    // queued members of guilds which wait for a slot or are updated. Guarded by this.
+    private final Map<Long, Queue<Member>> pending = new HashMap<>();
+    // guilds which wait for a slot. Guarded by this.
+    private final Queue<Long> waiting = new ArrayDeque<>();
+    // guarded by this
+    private int active;
+    private int size;
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
 
-    public static RoleUpdater create(Guilds guilds, RoleAssigner roleAssigner, ScheduledExecutorService executorService) {
-        RoleUpdater roleUpdater = new RoleUpdater(guilds, roleAssigner);
-        executorService.scheduleAtFixedRate(roleUpdater, 30, 30, TimeUnit.MINUTES);
-        return roleUpdater;
-    }
-
-    public RoleUpdater(Guilds guilds, RoleAssigner roleAssigner) {
+    private RoleUpdater(Guilds guilds, RoleAssigner roleAssigner, Executor executor) {
         this.guilds = guilds;
         this.roleAssigner = roleAssigner;
+        this.executor = executor;
+    }
+
+    /**
+     * Creates a new role updater.
+     *
+     * @param guilds          guilds
+     * @param roleAssigner    role assigner
+     * @param executorService executor to clear the checked members
+     * @param executor        executor to read the reputation of the queued members
+     * @return role updater
+     */
+    public static RoleUpdater create(Guilds guilds, RoleAssigner roleAssigner, ScheduledExecutorService executorService, Executor executor) {
+        RoleUpdater roleUpdater = new RoleUpdater(guilds, roleAssigner, executor);
+        executorService.scheduleAtFixedRate(roleUpdater, 30, 30, TimeUnit.MINUTES);
+        return roleUpdater;
     }
 
     @Override
     public void onMessageReceived(@NotNull MessageReceivedEvent event) {
         if (!event.isFromGuild()) return;
+        var member = event.getMember();
+        if (member == null) return;
         if (!guilds.guild(event.getGuild()).settings().general().reputationMode().isAutoRefresh()) return;
-        if (isChecked(event.getMember())) return;
-        roleAssigner.update(event.getMember());
-        guildSet(event.getGuild()).add(event.getMember().getIdLong());
+        var key = new Key(event.getGuild().getIdLong(), member.getIdLong());
+        if (!checked.add(key)) {
+            coalesced.increment();
+            return;
+        }
+        if (!offer(member)) {
+            // the member will be queued again with the next message
+            checked.remove(key);
+            dropped.increment();
+            return;
+        }
+        queued.increment();
+        process();
+    }
+
+    private synchronized boolean offer(Member member) {
+        if (size >= MAX_QUEUE) return false;
+        pending.computeIfAbsent(member.getGuild().getIdLong(), id -> {
+            waiting.add(id);
+            return new ArrayDeque<>();
+        }).add(member);
+        size++;
+        return true;
     }
 
-    public boolean isChecked(Member member) {
-        return guildSet(member.getGuild()).contains(member.getIdLong());
+    private void process() {
+        List<Long> started = new ArrayList<>();
+        synchronized (this) {
+            while (active < MAX_GUILDS && !waiting.isEmpty()) {
+                started.add(waiting.poll());
+                active++;
+            }
+        }
+        for (var guildId : started) next(guildId);
     }
 
-    public Set<Long> guildSet(Guild guild) {
-        return checked.computeIfAbsent(guild.getIdLong(), k -> new HashSet<>());
+    private void next(long guildId) {
+        try {
+            executor.execute(() -> update(guildId));
+        } catch (RejectedExecutionException e) {
+            // the bot is shutting down
+            synchronized (this) {
+                size -= pending.remove(guildId).size();
+                active--;
+            }
+        }
+    }
+
+    private void update(long guildId) {
+        Member member;
+        synchronized (this) {
+            member = pending.get(guildId).poll();
+            if (member == null) {
+                // the slot of the guild is free for the next guild
+                pending.remove(guildId);
+                active--;
+            } else {
+                size--;
+            }
+        }
+        if (member == null) {
+            process();
+            return;
+        }
+        CompletableFuture<?> update;
+        try {
+            update = roleAssigner.update(member);
+        } catch (RoleAccessException e) {
+            update = CompletableFuture.failedFuture(e);
+        } catch (RuntimeException e) {
+            log.warn("Could not update roles of {} on {}", member.getId(), prettyName(member.getGuild()), e);
+            update = CompletableFuture.failedFuture(e);
+        }
+        // the next member of the guild is updated once the request is done, to stay within the rate limit of the guild
+        update.whenComplete((result, err) -> {
+            if (err == null) {
+                processed.increment();
+            } else {
+                failed.increment();
+                log.debug("Could not update roles of {} on {}", member.getId(), prettyName(member.getGuild()), err);
+            }
+            next(guildId);
+        });
+    }
+
+    /**
+     * Amount of members waiting for a role update.
+     *
+     * @return queue depth
+     */
+    public synchronized int queueDepth() {
+        return size;
+    }
+
+    /**
+     * Amount of members which were queued.
+     *
+     * @return queued members
+     */
+    public long queued() {
+        return queued.sum();
+    }
+
+    /**
+     * Amount of messages of members which were already checked.
+     *
+     * @return coalesced updates
+     */
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Amount of members which were not queued because the queue was full.
+     *
+     * @return dropped members
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Amount of members whose roles were updated.
+     *
+     * @return processed members
+     */
+    public long processed() {
+        return processed.sum();
+    }
+
+    /**
+     * Amount of members whose roles could not be updated.
+     *
+     * @return failed updates
+     */
+    public long failed() {
+        return failed.sum();
     }
 
     @Override
     public void run() {
         checked.clear();
     }
+
+    private record Key(long guildId, long userId) {
+    }
 }
@@ -0,0 +1,275 @@
+package de.chojo.repbot.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Thread safe map of ids to the time they were seen last.
+ * <p>
+ * The map is split into {@link #STRIPES} stripes which are locked separately. Every stripe is an open addressing hash
+ * table of primitive ids and the seconds since the creation of the map. The id 0 marks an empty slot and can not be
+ * stored.
+ * <p>
+ * Entries are expired after the max age. Expired entries are removed by {@link #sweep()} or when a stripe is full. The
+ * map holds at most the max size entries. When a stripe is full and has no expired entries, the older half of the
+ * stripe is evicted.
+ */
+public class SeenMap {
+    private static final int STRIPES = 16;
+    private static final int INITIAL_CAPACITY = 64;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final int stripeSize;
+    private final long maxAge;
+    private final LongSupplier clock;
+    private final long base;
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    /**
+     * Creates a new seen map.
+     *
+     * @param maxSize max amount of entries
+     * @param maxAge  max age of an entry in seconds
+     */
+    public SeenMap(int maxSize, long maxAge) {
+        this(maxSize, maxAge, () -> TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()));
+    }
+
+    /**
+     * Creates a new seen map.
+     *
+     * @param maxSize max amount of entries
+     * @param maxAge  max age of an entry in seconds
+     * @param clock   clock of the current time in seconds
+     */
+    public SeenMap(int maxSize, long maxAge, LongSupplier clock) {
+        stripeSize = Math.max(1, maxSize / STRIPES);
+        this.maxAge = maxAge;
+        this.clock = clock;
+        base = clock.getAsLong();
+        for (var i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Marks an id as seen now.
+     *
+     * @param id id
+     * @throws IllegalArgumentException if the id is 0
+     */
+    public void touch(long id) {
+        if (id == 0) throw new IllegalArgumentException("The id 0 can not be stored");
+        var stripe = stripe(id);
+        synchronized (stripe) {
+            stripe.put(id, now());
+        }
+    }
+
+    /**
+     * Checks if the id was seen. This includes expired entries which were not removed yet.
+     *
+     * @param id id
+     * @return true if the id is in the map
+     */
+    public boolean contains(long id) {
+        var stripe = stripe(id);
+        synchronized (stripe) {
+            return stripe.indexOf(id) >= 0;
+        }
+    }
+
+    /**
+     * Checks if the id was seen within the max age.
+     *
+     * @param id id
+     * @return true if the id was seen recently
+     */
+    public boolean isRecent(long id) {
+        var stripe = stripe(id);
+        synchronized (stripe) {
+            var index = stripe.indexOf(id);
+            return index >= 0 && stripe.values[index] > oldest();
+        }
+    }
+
+    /**
+     * Removes an id.
+     *
+     * @param id id
+     */
+    public void remove(long id) {
+        var stripe = stripe(id);
+        synchronized (stripe) {
+            var index = stripe.indexOf(id);
+            if (index >= 0) stripe.removeAt(index);
+        }
+    }
+
+    /**
+     * Removes all expired entries.
+     */
+    public void sweep() {
+        for (var stripe : stripes) {
+            synchronized (stripe) {
+                expired.add(stripe.retainAfter(oldest()));
+            }
+        }
+    }
+
+    /**
+     * The amount of entries in the map.
+     *
+     * @return size
+     */
+    public int size() {
+        var size = 0;
+        for (var stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * The amount of entries which were removed because they expired.
+     *
+     * @return expired entries
+     */
+    public long expired() {
+        return expired.sum();
+    }
+
+    /**
+     * The amount of entries which were removed before they expired because the map was full.
+     *
+     * @return evicted entries
+     */
+    public long evicted() {
+        return evicted.sum();
+    }
+
+    private int now() {
+        return (int) (clock.getAsLong() - base);
+    }
+
+    private int oldest() {
+        return (int) (clock.getAsLong() - base - maxAge);
+    }
+
+    private Stripe stripe(long id) {
+        return stripes[(int) (mix(id) >>> 60) & (STRIPES - 1)];
+    }
+
+    private static long mix(long id) {
+        return id * 0x9E3779B97F4A7C15L;
+    }
+
+    private class Stripe {
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private int[] values = new int[INITIAL_CAPACITY];
+        private int size;
+
+        int indexOf(long id) {
+            var mask = keys.length - 1;
+            for (var index = slot(id, mask); ; index = (index + 1) & mask) {
+                if (keys[index] == id) return index;
+                if (keys[index] == 0) return -1;
+            }
+        }
+
+        void put(long id, int time) {
+            var index = indexOf(id);
+            if (index >= 0) {
+                values[index] = time;
+                return;
+            }
+            if (size >= stripeSize) makeRoom();
+            if ((size + 1) * 2 > keys.length) resize(keys.length * 2);
+            insert(id, time);
+        }
+
+        void removeAt(int index) {
+            // shift the following entries back to keep the probe sequences intact
+            var mask = keys.length - 1;
+            var next = index;
+            while (true) {
+                next = (next + 1) & mask;
+                if (keys[next] == 0) break;
+                var slot = slot(keys[next], mask);
+                var stays = index <= next ? index < slot && slot <= next : index < slot || slot <= next;
+                if (stays) continue;
+                keys[index] = keys[next];
+                values[index] = values[next];
+                index = next;
+            }
+            keys[index] = 0;
+            values[index] = 0;
+            size--;
+        }
+
+        /**
+         * Removes all entries which are not newer than the time.
+         *
+         * @return amount of removed entries
+         */
+        int retainAfter(int time) {
+            var oldKeys = keys;
+            var oldValues = values;
+            var oldSize = size;
+            var retained = 0;
+            for (var i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0 && oldValues[i] > time) retained++;
+            }
+            if (retained == oldSize) return 0;
+            var capacity = INITIAL_CAPACITY;
+            while (capacity < retained * 2) capacity *= 2;
+            keys = new long[capacity];
+            values = new int[capacity];
+            size = 0;
+            for (var i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0 && oldValues[i] > time) insert(oldKeys[i], oldValues[i]);
+            }
+            return oldSize - size;
+        }
+
+        private void makeRoom() {
+            expired.add(retainAfter(oldest()));
+            if (size < stripeSize) return;
+            var min = Integer.MAX_VALUE;
+            var max = Integer.MIN_VALUE;
+            for (var i = 0; i < keys.length; i++) {
+                if (keys[i] == 0) continue;
+                min = Math.min(min, values[i]);
+                max = Math.max(max, values[i]);
+            }
+            evicted.add(retainAfter(min + (max - min) / 2));
+        }
+
+        private void resize(int capacity) {
+            var oldKeys = keys;
+            var oldValues = values;
+            keys = new long[capacity];
+            values = new int[capacity];
+            size = 0;
+            for (var i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) insert(oldKeys[i], oldValues[i]);
+            }
+        }
+
+        private void insert(long id, int time) {
+            var mask = keys.length - 1;
+            var index = slot(id, mask);
+            while (keys[index] != 0) index = (index + 1) & mask;
+            keys[index] = id;
+            values[index] = time;
+            size++;
+        }
+
+        private int slot(long id, int mask) {
+            return (int) (mix(id) >>> 28) & mask;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package de.chojo.repbot.service;
+
+import de.chojo.repbot.dao.access.guild.RepGuild;
+import de.chojo.repbot.dao.provider.Guilds;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.events.ReadyEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Loads the settings of all guilds of a shard when the shard is ready.
+ * <p>
+ * The guilds are loaded in batches of {@link #BATCH_SIZE} guilds with one query per batch. The thankword matchers are
+ * compiled after the settings are loaded. The batches run on their own executor, which limits the connections used by
+ * the warm-up to its amount of threads.
+ */
+public class SettingsWarmup extends ListenerAdapter {
+    private static final Logger log = getLogger(SettingsWarmup.class);
+    private static final int BATCH_SIZE = 100;
+    private final Guilds guilds;
+    private final ExecutorService executor;
+
+    private SettingsWarmup(Guilds guilds, ExecutorService executor) {
+        this.guilds = guilds;
+        this.executor = executor;
+    }
+
+    /**
+     * Creates a new settings warm-up and warms up all shards which are connected already.
+     *
+     * @param shardManager shard manager
+     * @param guilds       guilds
+     * @param executor     executor to load the batches
+     * @return settings warm-up
+     */
+    public static SettingsWarmup create(ShardManager shardManager, Guilds guilds, ExecutorService executor) {
+        var warmup = new SettingsWarmup(guilds, executor);
+        for (var shard : shardManager.getShards()) {
+            // shards which are not connected yet are warmed up by their ready event
+            if (shard.getStatus() == JDA.Status.CONNECTED) warmup.warmup(shard);
+        }
+        return warmup;
+    }
+
+    @Override
+    public void onReady(@NotNull ReadyEvent event) {
+        warmup(event.getJDA());
+    }
+
+    private void warmup(JDA jda) {
+        var shard = jda.getShardInfo().getShardId();
+        var guilds = jda.getGuilds();
+        if (guilds.isEmpty()) return;
+        log.info("Warming up settings of {} guilds on shard {}", guilds.size(), shard);
+        var start = System.currentTimeMillis();
+        var done = new AtomicInteger();
+        for (var from = 0; from < guilds.size(); from += BATCH_SIZE) {
+            var batch = guilds.subList(from, Math.min(from + BATCH_SIZE, guilds.size()));
+            try {
+                executor.execute(() -> {
+                    load(batch);
+                    var loaded = done.addAndGet(batch.size());
+                    log.debug("Warmed up {}/{} guilds on shard {}", loaded, guilds.size(), shard);
+                    if (loaded == guilds.size()) {
+                        log.info("Warmed up settings of {} guilds on shard {} in {} ms", loaded, shard,
+                                System.currentTimeMillis() - start);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // the bot is shutting down
+                return;
+            }
+        }
+    }
+
+    private void load(List<Guild> batch) {
+        try {
+            for (var repGuild : guilds.guilds(batch)) {
+                warmup(repGuild);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not warm up settings of {} guilds", batch.size(), e);
+        }
+    }
+
+    private void warmup(RepGuild repGuild) {
+        // the channels are part of the loaded settings
+        repGuild.settings().thanking().thankwords().matcher();
+    }
+}
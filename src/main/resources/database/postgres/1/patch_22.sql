@@ -0,0 +1,149 @@
+-- Keep the received, donated and offset reputation of each user in a table instead of aggregating the log on every read.
+CREATE TABLE IF NOT EXISTS repbot_schema.user_reputation_totals
+(
+    guild_id   BIGINT           NOT NULL,
+    user_id    BIGINT           NOT NULL,
+    received   BIGINT DEFAULT 0 NOT NULL,
+    donated    BIGINT DEFAULT 0 NOT NULL,
+    rep_offset BIGINT DEFAULT 0 NOT NULL,
+    CONSTRAINT user_reputation_totals_pk
+        PRIMARY KEY (guild_id, user_id)
+);
+
+-- Fill the totals with the existing reputation.
+-- A donor id of 0 is used for reputation without a donor and is not a user.
+INSERT INTO repbot_schema.user_reputation_totals(guild_id, user_id, received, donated, rep_offset)
+SELECT guild_id,
+       user_id,
+       SUM(received),
+       SUM(donated),
+       SUM(rep_offset)
+FROM (SELECT guild_id, receiver_id AS user_id, COUNT(1) AS received, 0 AS donated, 0 AS rep_offset
+      FROM repbot_schema.reputation_log
+      WHERE receiver_id IS NOT NULL
+        AND receiver_id != 0
+      GROUP BY guild_id, receiver_id
+      UNION ALL
+      SELECT guild_id, donor_id AS user_id, 0 AS received, COUNT(1) AS donated, 0 AS rep_offset
+      FROM repbot_schema.reputation_log
+      WHERE donor_id IS NOT NULL
+        AND donor_id != 0
+      GROUP BY guild_id, donor_id
+      UNION ALL
+      SELECT guild_id, user_id, 0 AS received, 0 AS donated, amount AS rep_offset
+      FROM repbot_schema.reputation_offset) totals
+GROUP BY guild_id, user_id
+ON CONFLICT(guild_id, user_id) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION repbot_schema.add_reputation_totals(_guild_id BIGINT, _user_id BIGINT, _received BIGINT,
+                                                               _donated BIGINT, _offset BIGINT)
+    RETURNS VOID
+    LANGUAGE plpgsql
+AS
+$BODY$
+BEGIN
+    IF _user_id IS NULL OR _user_id = 0 THEN
+        RETURN;
+    END IF;
+
+    INSERT INTO repbot_schema.user_reputation_totals AS t(guild_id, user_id, received, donated, rep_offset)
+    VALUES (_guild_id, _user_id, _received, _donated, _offset)
+    ON CONFLICT(guild_id, user_id)
+        DO UPDATE SET received   = t.received + excluded.received,
+                      donated    = t.donated + excluded.donated,
+                      rep_offset = t.rep_offset + excluded.rep_offset;
+
+    -- Remove users which have nothing left. This happens when reputation was removed.
+    IF _received < 0 OR _donated < 0 OR _offset < 0 THEN
+        DELETE
+        FROM repbot_schema.user_reputation_totals
+        WHERE guild_id = _guild_id
+          AND user_id = _user_id
+          AND received = 0
+          AND donated = 0
+          AND rep_offset = 0;
+    END IF;
+END;
+$BODY$;
+
+CREATE OR REPLACE FUNCTION repbot_schema.reputation_log_totals()
+    RETURNS TRIGGER
+    LANGUAGE plpgsql
+AS
+$BODY$
+BEGIN
+    IF tg_op = 'INSERT' OR tg_op = 'UPDATE' THEN
+        PERFORM repbot_schema.add_reputation_totals(new.guild_id, new.receiver_id, 1, 0, 0);
+        PERFORM repbot_schema.add_reputation_totals(new.guild_id, new.donor_id, 0, 1, 0);
+    END IF;
+    IF tg_op = 'DELETE' OR tg_op = 'UPDATE' THEN
+        PERFORM repbot_schema.add_reputation_totals(old.guild_id, old.receiver_id, -1, 0, 0);
+        PERFORM repbot_schema.add_reputation_totals(old.guild_id, old.donor_id, 0, -1, 0);
+    END IF;
+    RETURN NULL;
+END;
+$BODY$;
+
+CREATE OR REPLACE FUNCTION repbot_schema.reputation_offset_totals()
+    RETURNS TRIGGER
+    LANGUAGE plpgsql
+AS
+$BODY$
+BEGIN
+    IF tg_op = 'INSERT' OR tg_op = 'UPDATE' THEN
+        PERFORM repbot_schema.add_reputation_totals(new.guild_id, new.user_id, 0, 0, new.amount);
+    END IF;
+    IF tg_op = 'DELETE' OR tg_op = 'UPDATE' THEN
+        PERFORM repbot_schema.add_reputation_totals(old.guild_id, old.user_id, 0, 0, -old.amount);
+    END IF;
+    RETURN NULL;
+END;
+$BODY$;
+
+DROP TRIGGER IF EXISTS reputation_log_totals ON repbot_schema.reputation_log;
+CREATE TRIGGER reputation_log_totals
+    AFTER INSERT OR DELETE OR UPDATE OF guild_id, donor_id, receiver_id
+    ON repbot_schema.reputation_log
+    FOR EACH ROW
+EXECUTE FUNCTION repbot_schema.reputation_log_totals();
+
+DROP TRIGGER IF EXISTS reputation_offset_totals ON repbot_schema.reputation_offset;
+CREATE TRIGGER reputation_offset_totals
+    AFTER INSERT OR DELETE OR UPDATE OF guild_id, user_id, amount
+    ON repbot_schema.reputation_offset
+    FOR EACH ROW
+EXECUTE FUNCTION repbot_schema.reputation_offset_totals();
+
+-- Read the user reputation from the totals. Only the ranks are still computed on read.
+DROP VIEW repbot_schema.user_reputation CASCADE;
+CREATE OR REPLACE VIEW repbot_schema.user_reputation
+            (rank, rank_donated, guild_id, user_id, reputation, rep_offset, raw_reputation, donated) AS
+SELECT ROW_NUMBER() OVER (PARTITION BY t.guild_id ORDER BY t.received + t.rep_offset DESC) AS rank,
+       ROW_NUMBER() OVER (PARTITION BY t.guild_id ORDER BY t.donated DESC)                 AS rank_donated,
+       t.guild_id,
+       t.user_id,
+       t.received + t.rep_offset                                                           AS reputation,
+       t.rep_offset,
+       t.received                                                                          AS raw_reputation,
+       t.donated
+FROM repbot_schema.user_reputation_totals t
+-- users with only an offset were never part of the ranking
+WHERE (t.received != 0 OR t.donated != 0)
+  AND NOT EXISTS(SELECT 1
+                 FROM repbot_schema.cleanup_schedule clean
+                 WHERE clean.guild_id = t.guild_id
+                   AND clean.user_id = t.user_id);
+
+-- Recreate global reputation because it depends on the user reputation
+CREATE OR REPLACE VIEW repbot_schema.global_user_reputation(rank, rank_donated, user_id, reputation, donated) AS
+SELECT ROW_NUMBER() OVER (ORDER BY reputation DESC) AS rank,
+       ROW_NUMBER() OVER (ORDER BY donated DESC)    AS rank_donated,
+       user_id,
+       reputation,
+       donated
+FROM (SELECT user_reputation.user_id,
+             -- Use the raw reputation here to ignore the offsets.
+             SUM(user_reputation.raw_reputation) AS reputation,
+             SUM(user_reputation.donated)        AS donated
+      FROM repbot_schema.user_reputation
+      GROUP BY user_reputation.user_id) rep;
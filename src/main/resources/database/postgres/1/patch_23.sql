@@ -0,0 +1,130 @@
+-- Daily buckets of the received and donated reputation for the rolling reputation modes.
+-- Buckets are kept for 31 days and removed afterwards.
+CREATE TABLE IF NOT EXISTS repbot_schema.reputation_daily
+(
+    guild_id BIGINT           NOT NULL,
+    user_id  BIGINT           NOT NULL,
+    day      DATE             NOT NULL,
+    received BIGINT DEFAULT 0 NOT NULL,
+    donated  BIGINT DEFAULT 0 NOT NULL,
+    CONSTRAINT reputation_daily_pk
+        PRIMARY KEY (guild_id, user_id, day)
+);
+
+CREATE INDEX IF NOT EXISTS reputation_daily_day_index
+    ON repbot_schema.reputation_daily (day);
+
+-- Fill the buckets with the reputation of the last 31 days.
+INSERT INTO repbot_schema.reputation_daily(guild_id, user_id, day, received, donated)
+SELECT guild_id,
+       user_id,
+       day,
+       SUM(received),
+       SUM(donated)
+FROM (SELECT guild_id, receiver_id AS user_id, received::DATE AS day, COUNT(1) AS received, 0 AS donated
+      FROM repbot_schema.reputation_log
+      WHERE received::DATE > CURRENT_DATE - 31
+        AND receiver_id IS NOT NULL
+        AND receiver_id != 0
+      GROUP BY guild_id, receiver_id, day
+      UNION ALL
+      SELECT guild_id, donor_id AS user_id, received::DATE AS day, 0 AS received, COUNT(1) AS donated
+      FROM repbot_schema.reputation_log
+      WHERE received::DATE > CURRENT_DATE - 31
+        AND donor_id IS NOT NULL
+        AND donor_id != 0
+      GROUP BY guild_id, donor_id, day) buckets
+GROUP BY guild_id, user_id, day
+ON CONFLICT(guild_id, user_id, day) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION repbot_schema.add_reputation_daily(_guild_id BIGINT, _user_id BIGINT, _day DATE,
+                                                              _received BIGINT, _donated BIGINT)
+    RETURNS VOID
+    LANGUAGE plpgsql
+AS
+$BODY$
+BEGIN
+    -- Reputation outside of the buckets is not part of any rolling mode.
+    IF _user_id IS NULL OR _user_id = 0 OR _day <= CURRENT_DATE - 31 THEN
+        RETURN;
+    END IF;
+
+    INSERT INTO repbot_schema.reputation_daily AS d(guild_id, user_id, day, received, donated)
+    VALUES (_guild_id, _user_id, _day, _received, _donated)
+    ON CONFLICT(guild_id, user_id, day)
+        DO UPDATE SET received = d.received + excluded.received,
+                      donated  = d.donated + excluded.donated;
+END;
+$BODY$;
+
+CREATE OR REPLACE FUNCTION repbot_schema.reputation_log_daily()
+    RETURNS TRIGGER
+    LANGUAGE plpgsql
+AS
+$BODY$
+BEGIN
+    IF tg_op = 'INSERT' OR tg_op = 'UPDATE' THEN
+        PERFORM repbot_schema.add_reputation_daily(new.guild_id, new.receiver_id, new.received::DATE, 1, 0);
+        PERFORM repbot_schema.add_reputation_daily(new.guild_id, new.donor_id, new.received::DATE, 0, 1);
+    END IF;
+    IF tg_op = 'DELETE' OR tg_op = 'UPDATE' THEN
+        PERFORM repbot_schema.add_reputation_daily(old.guild_id, old.receiver_id, old.received::DATE, -1, 0);
+        PERFORM repbot_schema.add_reputation_daily(old.guild_id, old.donor_id, old.received::DATE, 0, -1);
+    END IF;
+    RETURN NULL;
+END;
+$BODY$;
+
+DROP TRIGGER IF EXISTS reputation_log_daily ON repbot_schema.reputation_log;
+CREATE TRIGGER reputation_log_daily
+    AFTER INSERT OR DELETE OR UPDATE OF guild_id, donor_id, receiver_id, received
+    ON repbot_schema.reputation_log
+    FOR EACH ROW
+EXECUTE FUNCTION repbot_schema.reputation_log_daily();
+
+-- Sum up the buckets instead of aggregating the log.
+-- The windows are now full days. The current day and the 7 days before it for a week, the current day and the 28 days
+-- before it for a month.
+DROP VIEW repbot_schema.user_reputation_week;
+
+CREATE OR REPLACE VIEW repbot_schema.user_reputation_week(rank, rank_donated, guild_id, user_id, reputation, donated) AS
+SELECT ROW_NUMBER() OVER (PARTITION BY rep.guild_id ORDER BY rep.reputation DESC) AS rank,
+       ROW_NUMBER() OVER (PARTITION BY rep.guild_id ORDER BY rep.donated DESC)    AS rank_donated,
+       rep.guild_id,
+       rep.user_id,
+       rep.reputation,
+       rep.donated
+FROM (SELECT d.guild_id,
+             d.user_id,
+             SUM(d.received) AS reputation,
+             SUM(d.donated)  AS donated
+      FROM repbot_schema.reputation_daily d
+      WHERE d.day >= CURRENT_DATE - 7
+      GROUP BY d.guild_id, d.user_id) rep
+WHERE (rep.reputation != 0 OR rep.donated != 0)
+  AND NOT EXISTS(SELECT 1
+                 FROM repbot_schema.cleanup_schedule clean
+                 WHERE clean.guild_id = rep.guild_id
+                   AND clean.user_id = rep.user_id);
+
+DROP VIEW repbot_schema.user_reputation_month;
+
+CREATE OR REPLACE VIEW repbot_schema.user_reputation_month(rank, rank_donated, guild_id, user_id, reputation, donated) AS
+SELECT ROW_NUMBER() OVER (PARTITION BY rep.guild_id ORDER BY rep.reputation DESC) AS rank,
+       ROW_NUMBER() OVER (PARTITION BY rep.guild_id ORDER BY rep.donated DESC)    AS rank_donated,
+       rep.guild_id,
+       rep.user_id,
+       rep.reputation,
+       rep.donated
+FROM (SELECT d.guild_id,
+             d.user_id,
+             SUM(d.received) AS reputation,
+             SUM(d.donated)  AS donated
+      FROM repbot_schema.reputation_daily d
+      WHERE d.day >= CURRENT_DATE - 28
+      GROUP BY d.guild_id, d.user_id) rep
+WHERE (rep.reputation != 0 OR rep.donated != 0)
+  AND NOT EXISTS(SELECT 1
+                 FROM repbot_schema.cleanup_schedule clean
+                 WHERE clean.guild_id = rep.guild_id
+                   AND clean.user_id = rep.user_id);
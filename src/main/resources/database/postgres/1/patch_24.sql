@@ -0,0 +1,10 @@
+-- Indices for the seek pagination of the user logs. They replace the indices on the guild and user.
+-- The donor and receiver of a log entry can be NULL. The seek pagination compares and sorts them as 0.
+CREATE INDEX IF NOT EXISTS reputation_log_received_seek_index
+    ON repbot_schema.reputation_log (guild_id, receiver_id, received DESC, message_id DESC, COALESCE(donor_id, 0) DESC);
+
+CREATE INDEX IF NOT EXISTS reputation_log_donated_seek_index
+    ON repbot_schema.reputation_log (guild_id, donor_id, received DESC, message_id DESC, COALESCE(receiver_id, 0) DESC);
+
+DROP INDEX IF EXISTS repbot_schema.repuation_log_received;
+DROP INDEX IF EXISTS repbot_schema.repuation_log_donated;
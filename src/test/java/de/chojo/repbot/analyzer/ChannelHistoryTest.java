@@ -0,0 +1,59 @@
+package de.chojo.repbot.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+class ChannelHistoryTest {
+
+    @Test
+    void unseeded() {
+        var history = new ChannelHistory(10);
+        history.add(message(5));
+        history.add(message(6));
+        Assertions.assertTrue(history.before(7, 2).isPresent());
+        Assertions.assertEquals(Optional.empty(), history.before(7, 3));
+        Assertions.assertEquals(Optional.empty(), history.before(4, 1));
+    }
+
+    @Test
+    void seeded() {
+        var history = new ChannelHistory(10);
+        history.add(message(5));
+        history.add(message(6));
+        history.seed(List.of(message(4), message(3)), true);
+        Assertions.assertEquals(List.of(6L, 5L, 4L, 3L), ids(history.before(7, 5)));
+        Assertions.assertEquals(List.of(4L), ids(history.before(5, 1)));
+    }
+
+    @Test
+    void outOfOrderAndRemove() {
+        var history = new ChannelHistory(10);
+        history.add(message(1));
+        history.add(message(3));
+        history.add(message(2));
+        history.remove(3);
+        Assertions.assertEquals(List.of(2L, 1L), ids(history.before(4, 2)));
+    }
+
+    @Test
+    void overflow() {
+        var history = new ChannelHistory(3);
+        for (var i = 1; i <= 5; i++) history.add(message(i));
+        Assertions.assertEquals(List.of(5L, 4L, 3L), ids(history.before(6, 3)));
+        // message 2 was dropped
+        Assertions.assertEquals(Optional.empty(), history.before(6, 4));
+        Assertions.assertEquals(Optional.empty(), history.before(2, 1));
+    }
+
+    private static HistoryMessage message(long id) {
+        return new HistoryMessage(id, id * 10, Instant.ofEpochMilli(id), false);
+    }
+
+    private static List<Long> ids(Optional<List<HistoryMessage>> messages) {
+        return messages.orElseThrow().stream().map(HistoryMessage::id).toList();
+    }
+}
@@ -0,0 +1,63 @@
+package de.chojo.repbot.analyzer.matching;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+class ThankwordMatcherTest {
+    private static final List<String> THANKWORDS = List.of("thx", "thank[sx]?", "ty", "dan[kg]e?", "(?:re)?merci",
+            "спасиб[ао]?", "he+lp", "a|b");
+    private static final List<String> MESSAGES = List.of("thanks @bob", "Thank you", "athanks", "thanks_", "remerci!",
+            "hello there", "danke schön", "спасибо", "heeelp", "x ty", "ty", "thankx.", "b", "ab", "", "tyvm");
+
+    @Test
+    void matchesLikeRegex() {
+        var matcher = ThankwordMatcher.compile(THANKWORDS);
+        var pattern = legacyPattern();
+        for (var message : MESSAGES) {
+            var content = message.toLowerCase();
+            Assertions.assertEquals(pattern.matcher(content).find(), matcher.find(content), message);
+        }
+    }
+
+    @Test
+    void region() {
+        var matcher = ThankwordMatcher.compile(THANKWORDS);
+        var message = "hey thanks bob";
+        Assertions.assertTrue(matcher.find(message, 4, 10));
+        Assertions.assertFalse(matcher.find(message, 5, 10));
+        Assertions.assertFalse(matcher.find(message, 0, 3));
+    }
+
+    @Test
+    void prefilter() {
+        var matcher = ThankwordMatcher.compile(THANKWORDS);
+        var pattern = legacyPattern();
+        for (var message : MESSAGES) {
+            if (pattern.matcher(message.toLowerCase()).find()) {
+                Assertions.assertTrue(matcher.mayMatch(message), message);
+            }
+        }
+        Assertions.assertFalse(matcher.mayMatch("hello there"));
+        Assertions.assertTrue(matcher.mayMatch("THANKS"));
+        // thankwords without known literals can not be filtered
+        Assertions.assertTrue(ThankwordMatcher.compile(List.of("\\w+(?i)x")).mayMatch("hello there"));
+    }
+
+    @Test
+    void empty() {
+        Assertions.assertTrue(ThankwordMatcher.compile(List.of()).isEmpty());
+        Assertions.assertFalse(ThankwordMatcher.compile(List.of("thx")).isEmpty());
+    }
+
+    private static Pattern legacyPattern() {
+        var thankwords = THANKWORDS.stream()
+                .map(t -> String.format("((?:^|\\b)%s(?:$|\\b))", t))
+                .collect(Collectors.joining("|"));
+        return Pattern.compile(String.format("(?i)(%s)", thankwords),
+                Pattern.CASE_INSENSITIVE + Pattern.MULTILINE + Pattern.DOTALL + Pattern.COMMENTS);
+    }
+}
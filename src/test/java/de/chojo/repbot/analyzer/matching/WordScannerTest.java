@@ -0,0 +1,60 @@
+package de.chojo.repbot.analyzer.matching;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class WordScannerTest {
+    private static final ThankwordMatcher MATCHER = ThankwordMatcher.compile(List.of("thank[sx]?", "ty"));
+
+    @Test
+    void words() {
+        var scanner = new WordScanner().scan("  hey\tthere\n\nbob  ", MATCHER);
+        Assertions.assertEquals(3, scanner.words());
+        Assertions.assertEquals("hey", scanner.word(0));
+        Assertions.assertEquals("there", scanner.word(1));
+        Assertions.assertEquals("bob", scanner.word(2));
+        Assertions.assertEquals(0, scanner.thankwords());
+        Assertions.assertEquals(0, scanner.candidates(6));
+    }
+
+    @Test
+    void thankwordPositions() {
+        var scanner = new WordScanner().scan("hey bob thanks for the help ty!", MATCHER);
+        Assertions.assertEquals(2, scanner.thankwords());
+        Assertions.assertEquals(2, scanner.thankword(0));
+        Assertions.assertEquals(6, scanner.thankword(1));
+    }
+
+    @Test
+    void candidates() {
+        var scanner = new WordScanner().scan("a b c d e f g h thanks i j k l m n o p q", MATCHER);
+        var count = scanner.candidates(6);
+        Assertions.assertEquals(12, count);
+        Assertions.assertEquals("c", scanner.word(scanner.candidate(0)));
+        Assertions.assertEquals("h", scanner.word(scanner.candidate(5)));
+        Assertions.assertEquals("i", scanner.word(scanner.candidate(6)));
+        Assertions.assertEquals("n", scanner.word(scanner.candidate(11)));
+    }
+
+    @Test
+    void overlappingWindows() {
+        // windows overlap, but every word is a candidate only once. Thankwords in range of another one are candidates.
+        var scanner = new WordScanner().scan("bob thanks ty alice", MATCHER);
+        Assertions.assertEquals(4, scanner.candidates(6));
+        Assertions.assertEquals("bob", scanner.word(scanner.candidate(0)));
+        Assertions.assertEquals("thanks", scanner.word(scanner.candidate(1)));
+        Assertions.assertEquals("ty", scanner.word(scanner.candidate(2)));
+        Assertions.assertEquals("alice", scanner.word(scanner.candidate(3)));
+    }
+
+    @Test
+    void reuse() {
+        var scanner = new WordScanner();
+        scanner.scan("thanks bob", MATCHER);
+        scanner.scan("hello", MATCHER);
+        Assertions.assertEquals(1, scanner.words());
+        Assertions.assertEquals(0, scanner.thankwords());
+    }
+}
@@ -0,0 +1,41 @@
+package de.chojo.repbot.dao.access.guild.reputation.sub;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class HourlyCounterTest {
+    @Test
+    void window() {
+        var counter = new HourlyCounter(3);
+        counter.add(100, 1);
+        counter.add(101, 2);
+        counter.add(102, 3);
+        Assertions.assertEquals(6, counter.count(102));
+        Assertions.assertEquals(5, counter.count(103));
+        Assertions.assertEquals(3, counter.count(104));
+        Assertions.assertEquals(0, counter.count(105));
+    }
+
+    @Test
+    void outdated() {
+        var counter = new HourlyCounter(2);
+        counter.add(100, 1);
+        // the hour is already out of the window
+        counter.add(98, 1);
+        Assertions.assertEquals(1, counter.count(100));
+        counter.add(99, 1);
+        Assertions.assertEquals(2, counter.count(100));
+        // counting an older hour does not move the window back
+        Assertions.assertEquals(2, counter.count(50));
+    }
+
+    @Test
+    void jump() {
+        var counter = new HourlyCounter(24);
+        counter.add(1000, 5);
+        Assertions.assertEquals(5, counter.count(1023));
+        Assertions.assertEquals(0, counter.count(5000));
+        counter.add(5000, 1);
+        Assertions.assertEquals(1, counter.count(5000));
+    }
+}
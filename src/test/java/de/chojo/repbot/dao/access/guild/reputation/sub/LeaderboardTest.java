@@ -0,0 +1,67 @@
+package de.chojo.repbot.dao.access.guild.reputation.sub;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+class LeaderboardTest {
+    @Test
+    void order() {
+        var leaderboard = new Leaderboard();
+        leaderboard.set(1, 5);
+        leaderboard.set(2, 10);
+        leaderboard.set(3, 5);
+        leaderboard.set(4, -2);
+        Assertions.assertEquals(List.of(
+                new Leaderboard.Entry(1, 2, 10),
+                new Leaderboard.Entry(2, 1, 5),
+                new Leaderboard.Entry(3, 3, 5),
+                new Leaderboard.Entry(4, 4, -2)), leaderboard.page(0, 10));
+        Assertions.assertEquals(List.of(new Leaderboard.Entry(3, 3, 5)), leaderboard.page(2, 1));
+        Assertions.assertEquals(List.of(), leaderboard.page(4, 2));
+        Assertions.assertEquals(3, leaderboard.rank(3));
+    }
+
+    @Test
+    void change() {
+        var leaderboard = new Leaderboard();
+        leaderboard.set(1, 5);
+        leaderboard.set(2, 3);
+        leaderboard.add(2, 3);
+        Assertions.assertEquals(1, leaderboard.rank(2));
+        Assertions.assertEquals(2, leaderboard.rank(1));
+        // users without reputation are removed
+        leaderboard.add(1, -5);
+        Assertions.assertEquals(0, leaderboard.rank(1));
+        Assertions.assertEquals(1, leaderboard.size());
+    }
+
+    @Test
+    void random() {
+        var random = new Random(42);
+        var leaderboard = new Leaderboard();
+        Map<Long, Long> reputation = new HashMap<>();
+        for (var i = 0; i < 5000; i++) {
+            var user = (long) random.nextInt(200);
+            var amount = (long) random.nextInt(7) - 2;
+            leaderboard.add(user, amount);
+            reputation.merge(user, amount, Long::sum);
+        }
+        var expected = reputation.entrySet().stream()
+                .filter(entry -> entry.getValue() != 0)
+                .sorted(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()))
+                .toList();
+        var page = leaderboard.page(0, Integer.MAX_VALUE);
+        Assertions.assertEquals(expected.size(), leaderboard.size());
+        for (var i = 0; i < expected.size(); i++) {
+            var entry = expected.get(i);
+            Assertions.assertEquals(new Leaderboard.Entry(i + 1, entry.getKey(), entry.getValue()), page.get(i));
+            Assertions.assertEquals(i + 1, leaderboard.rank(entry.getKey()));
+        }
+    }
+}
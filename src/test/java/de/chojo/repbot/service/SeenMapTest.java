@@ -0,0 +1,64 @@
+package de.chojo.repbot.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+class SeenMapTest {
+    @Test
+    void expire() {
+        var clock = new AtomicLong(1000);
+        var seen = new SeenMap(100, 60, clock::get);
+        seen.touch(1);
+        clock.addAndGet(30);
+        seen.touch(2);
+        Assertions.assertTrue(seen.isRecent(1));
+        clock.addAndGet(40);
+        Assertions.assertFalse(seen.isRecent(1));
+        Assertions.assertTrue(seen.contains(1));
+        Assertions.assertTrue(seen.isRecent(2));
+        seen.sweep();
+        Assertions.assertFalse(seen.contains(1));
+        Assertions.assertEquals(1, seen.size());
+        Assertions.assertEquals(1, seen.expired());
+    }
+
+    @Test
+    void cap() {
+        var clock = new AtomicLong();
+        var seen = new SeenMap(1000, 3600, clock::get);
+        for (var i = 1; i <= 100000; i++) {
+            clock.incrementAndGet();
+            seen.touch(i);
+        }
+        Assertions.assertTrue(seen.size() <= 1000);
+        Assertions.assertEquals(100000 - seen.size(), seen.evicted() + seen.expired());
+        // the latest entry is never evicted
+        Assertions.assertTrue(seen.isRecent(100000));
+    }
+
+    @Test
+    void random() {
+        var random = new Random(42);
+        var seen = new SeenMap(100000, 3600, () -> 0);
+        Map<Long, Boolean> expected = new HashMap<>();
+        for (var i = 0; i < 200000; i++) {
+            var id = (long) random.nextInt(5000) + 1;
+            if (random.nextBoolean()) {
+                seen.touch(id);
+                expected.put(id, true);
+            } else {
+                seen.remove(id);
+                expected.remove(id);
+            }
+        }
+        Assertions.assertEquals(expected.size(), seen.size());
+        for (long id = 1; id <= 5000; id++) {
+            Assertions.assertEquals(expected.containsKey(id), seen.contains(id));
+        }
+    }
+}